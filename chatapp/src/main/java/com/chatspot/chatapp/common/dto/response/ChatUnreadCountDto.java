@@ -0,0 +1,14 @@
+package com.chatspot.chatapp.common.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChatUnreadCountDto {
+    private Long chatId;
+    private Integer unreadCount;
+    private Long lastReadSeq;
+}
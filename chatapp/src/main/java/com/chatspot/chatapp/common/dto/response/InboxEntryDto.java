@@ -0,0 +1,29 @@
+package com.chatspot.chatapp.common.dto.response;
+
+import com.chatspot.chatapp.entity.chat.ChatType;
+import com.chatspot.chatapp.entity.message.MessageType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class InboxEntryDto {
+    private Long chatId;
+    private ChatType type;
+    private String name;
+    // The other member of an individual chat; null for groups
+    private String counterpartId;
+    private String counterpartName;
+    private Long lastMessageId;
+    private Long lastMessageSeq;
+    private String lastMessagePreview;
+    private MessageType lastMessageType;
+    private String lastMessageSenderId;
+    private String lastMessageSenderName;
+    private LocalDateTime lastActivityAt;
+    private Integer unreadCount;
+}
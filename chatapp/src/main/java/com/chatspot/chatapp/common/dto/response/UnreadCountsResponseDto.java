@@ -0,0 +1,16 @@
+package com.chatspot.chatapp.common.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UnreadCountsResponseDto {
+    // Only chats with at least one unread message are listed
+    private List<ChatUnreadCountDto> chats;
+    private long total;
+}
@@ -0,0 +1,18 @@
+package com.chatspot.chatapp.common.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserPresenceDto {
+    private String userId;
+    private Boolean online;
+    // Status the client chose, e.g. "away"; null when none was set
+    private String status;
+    private LocalDateTime lastSeen;
+}
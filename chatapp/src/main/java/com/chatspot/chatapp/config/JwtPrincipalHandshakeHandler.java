@@ -1,17 +1,46 @@
 package com.chatspot.chatapp.config;
 
 import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.web.socket.WebSocketExtension;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 
 import java.security.Principal;
+import java.util.List;
 import java.util.Map;
 
 public class JwtPrincipalHandshakeHandler extends DefaultHandshakeHandler {
+
+    public static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    private final boolean perMessageDeflate;
+
+    public JwtPrincipalHandshakeHandler() {
+        this(true);
+    }
+
+    // With perMessageDeflate, compression is accepted whenever the client offers it and the container supports it
+    public JwtPrincipalHandshakeHandler(boolean perMessageDeflate) {
+        this.perMessageDeflate = perMessageDeflate;
+    }
+
     @Override
     protected Principal determineUser(ServerHttpRequest request,
                                       WebSocketHandler wsHandler,
                                       Map<String, Object> attributes) {
         return (Principal) attributes.get("user");
     }
+
+    @Override
+    protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+                                                                 List<WebSocketExtension> requestedExtensions,
+                                                                 List<WebSocketExtension> supportedExtensions) {
+        List<WebSocketExtension> accepted = super.filterRequestedExtensions(request, requestedExtensions, supportedExtensions);
+        if (perMessageDeflate) {
+            return accepted;
+        }
+        return accepted.stream()
+                .filter(extension -> !PERMESSAGE_DEFLATE.equalsIgnoreCase(extension.getName()))
+                .toList();
+    }
 }
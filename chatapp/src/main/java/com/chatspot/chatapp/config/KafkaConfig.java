@@ -1,12 +1,36 @@
 package com.chatspot.chatapp.config;
 
+import com.chatspot.chatapp.eventbus.EventBus;
+import com.chatspot.chatapp.kafka.EventDeduplicator;
+import com.chatspot.chatapp.kafka.serialization.ChatEventBinaryDeserializer;
+import com.chatspot.chatapp.kafka.serialization.ChatEventBinarySerializer;
+import com.chatspot.chatapp.websocket.NodeSessionRegistry;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.serialization.Serializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaConsumerFactoryCustomizer;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.ContainerCustomizer;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.support.serializer.DelegatingByTopicSerializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 @Configuration
+@ConditionalOnProperty(name = EventBus.MODE_PROPERTY, havingValue = EventBus.MODE_KAFKA, matchIfMissing = true)
 public class KafkaConfig {
     
     @Value("${kafka.chat.topic.name}")
@@ -15,6 +39,9 @@ public class KafkaConfig {
     private String deliveryTopicName;
     @Value("${kafka.message.topic.name}")
     private String messageTopicName;
+    // Topics written in the compact binary event format; every other topic stays JSON
+    @Value("${application.kafka.binary-topics:}")
+    private List<String> binaryTopics;
 
     
     // Topic Configuration
@@ -41,4 +68,57 @@ public class KafkaConfig {
                 .replicas(1)
                 .build();
     }
+
+    // This node's WebSocket fan-out topic
+    @Bean
+    public NewTopic nodeTopic(NodeSessionRegistry nodeSessionRegistry) {
+        return nodeSessionRegistry.newTopic();
+    }
+
+    // Picked up by the default factory; tells the deduplicator which partitions this node holds
+    @Bean
+    public ContainerCustomizer<Object, Object, ConcurrentMessageListenerContainer<Object, Object>> rebalanceListenerCustomizer(
+            EventDeduplicator eventDeduplicator) {
+        return container -> container.getContainerProperties().setConsumerRebalanceListener(eventDeduplicator);
+    }
+
+    // Same settings as the default factory, but hands each listener the whole poll as one list
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory,
+            ContainerCustomizer<Object, Object, ConcurrentMessageListenerContainer<Object, Object>> rebalanceListenerCustomizer) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.setContainerCustomizer(rebalanceListenerCustomizer);
+        factory.setBatchListener(true);
+        return factory;
+    }
+
+    @Bean
+    @SuppressWarnings("unchecked")
+    public DefaultKafkaProducerFactoryCustomizer chatEventSerializerCustomizer() {
+        return producerFactory -> ((DefaultKafkaProducerFactory<Object, Object>) producerFactory)
+                .setValueSerializerSupplier(this::chatEventSerializer);
+    }
+
+    // The deserializer detects the format of each record, so consumers need no per-topic setting
+    @Bean
+    @SuppressWarnings("unchecked")
+    public DefaultKafkaConsumerFactoryCustomizer chatEventDeserializerCustomizer() {
+        return consumerFactory -> ((DefaultKafkaConsumerFactory<Object, Object>) consumerFactory)
+                .setValueDeserializerSupplier(ChatEventBinaryDeserializer::new);
+    }
+
+    private Serializer<Object> chatEventSerializer() {
+        Map<Pattern, Serializer<?>> delegates = new LinkedHashMap<>();
+        // Node topics are new and read by this version only, so they never need JSON
+        delegates.put(Pattern.compile(Pattern.quote(NodeSessionRegistry.NODE_TOPIC_PREFIX) + ".*"), new ChatEventBinarySerializer());
+        for (String topic : binaryTopics) {
+            if (!topic.isBlank()) {
+                delegates.put(Pattern.compile(Pattern.quote(topic.trim())), new ChatEventBinarySerializer());
+            }
+        }
+        return new DelegatingByTopicSerializer(delegates, new JsonSerializer<>());
+    }
 }
\ No newline at end of file
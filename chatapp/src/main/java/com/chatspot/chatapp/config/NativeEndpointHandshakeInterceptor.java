@@ -0,0 +1,30 @@
+package com.chatspot.chatapp.config;
+
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Map;
+
+/**
+ * Marks sessions of the raw WebSocket endpoint, the only ones that can receive binary frames: SockJS sends
+ * every frame as text.
+ */
+public class NativeEndpointHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String NATIVE_WEBSOCKET_ATTRIBUTE = "nativeWebSocket";
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        attributes.put(NATIVE_WEBSOCKET_ATTRIBUTE, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception ex) {
+        // no-op
+    }
+}
@@ -40,7 +40,8 @@ public class SecurityConfig {
                             "/swagger-ui/**",
                             "/webjars/**",
                             "/swagger-ui.html",
-                            "/ws/**"
+                            "/ws/**",
+                            "/ws-native"
 
                     ).permitAll()
                             .anyRequest()
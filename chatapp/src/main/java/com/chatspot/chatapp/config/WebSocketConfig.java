@@ -1,8 +1,23 @@
 package com.chatspot.chatapp.config;
 
+import com.chatspot.chatapp.service.PresenceService;
+import com.chatspot.chatapp.websocket.BinaryBodyInterceptor;
+import com.chatspot.chatapp.websocket.IndexedSubscriptionRegistry;
+import com.chatspot.chatapp.websocket.SessionOutboundExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
 import org.springframework.web.socket.config.annotation.*;
 import org.springframework.web.socket.server.support.HttpSessionHandshakeInterceptor;
@@ -13,12 +28,93 @@ import org.springframework.web.socket.server.support.HttpSessionHandshakeInterce
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final JwtAuthenticationProvider jwtAuthenticationProvider;
+    private final PresenceService presenceService;
+    private final MeterRegistry meterRegistry;
+    private final BinaryBodyInterceptor binaryBodyInterceptor;
+
+    @Value("${application.websocket.outbound.queue-capacity:1000}")
+    private int outboundQueueCapacity;
+
+    @Value("${application.websocket.outbound.buffer-size-limit:524288}")
+    private int outboundBufferSizeLimit;
+
+    @Value("${application.websocket.outbound.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${application.websocket.inbound.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${application.websocket.native.permessage-deflate:true}")
+    private boolean perMessageDeflate;
+
+    // Not a bean: it is registered as the outbound channel executor, and would otherwise be initialized twice
+    private SessionOutboundExecutor outboundExecutor;
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/queue");
+        // Heartbeats both ways, so dead connections are detected and live ones count as activity for presence.
+        // Not a bean: a TaskScheduler bean would replace the one @Scheduled jobs run on.
+        ThreadPoolTaskScheduler heartbeatScheduler = new ThreadPoolTaskScheduler();
+        heartbeatScheduler.setPoolSize(1);
+        heartbeatScheduler.setThreadNamePrefix("ws-heartbeat-");
+        heartbeatScheduler.setDaemon(true);
+        heartbeatScheduler.initialize();
+        config.enableSimpleBroker("/topic", "/queue")
+                .setHeartbeatValue(new long[]{10000, 10000})
+                .setTaskScheduler(heartbeatScheduler);
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user");
+        // Publish order per session is kept by SessionOutboundExecutor. The broker's own ordering would queue
+        // frames for a slow session without bound, ahead of the executor's limits.
+    }
+
+    // The broker registration has no hook for the subscription registry, so it is swapped in here
+    @Bean
+    public static BeanPostProcessor indexedSubscriptionRegistryInstaller() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof SimpleBrokerMessageHandler broker) {
+                    broker.setSubscriptionRegistry(new IndexedSubscriptionRegistry());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                presenceService.onSessionActivity(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+                return message;
+            }
+        });
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.executor(outboundExecutor())
+                .interceptors(binaryBodyInterceptor);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Spring's session decorator only checks these while two threads send to one session, which the outbound
+        // executor avoids; the executor applies the same limits to its per-session queues
+        registration.setMessageSizeLimit(messageSizeLimit)
+                .setSendBufferSizeLimit(outboundBufferSizeLimit)
+                .setSendTimeLimit(sendTimeLimitMs)
+                .addDecoratorFactory(outboundExecutor());
+    }
+
+    private SessionOutboundExecutor outboundExecutor() {
+        if (outboundExecutor == null) {
+            outboundExecutor = new SessionOutboundExecutor(meterRegistry, outboundQueueCapacity,
+                    outboundBufferSizeLimit, sendTimeLimitMs);
+        }
+        return outboundExecutor;
     }
 
     @Override
@@ -28,5 +124,12 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns("*")
                 .addInterceptors(new JwtHandshakeInterceptor(jwtAuthenticationProvider)) // <-- updated
                 .withSockJS();
+        // Raw WebSocket for clients that do not need SockJS fallbacks: no SockJS framing, compressed when the
+        // client offers permessage-deflate, and binary message bodies on request
+        registry.addEndpoint("/ws-native")
+                .setHandshakeHandler(new JwtPrincipalHandshakeHandler(perMessageDeflate))
+                .setAllowedOriginPatterns("*")
+                .addInterceptors(new JwtHandshakeInterceptor(jwtAuthenticationProvider),
+                        new NativeEndpointHandshakeInterceptor());
     }
 }
@@ -4,9 +4,11 @@ import com.chatspot.chatapp.common.dto.request.AddParticipantRequest;
 import com.chatspot.chatapp.common.dto.request.CreateGroupChatRequest;
 import com.chatspot.chatapp.common.dto.request.CreateIndividualChatRequest;
 import com.chatspot.chatapp.common.dto.response.ChatResponseDto;
+import com.chatspot.chatapp.common.dto.response.UnreadCountsResponseDto;
 import com.chatspot.chatapp.entity.chat.Chat;
 import com.chatspot.chatapp.service.ChatService;
 import com.chatspot.chatapp.service.DtoMapperService;
+import com.chatspot.chatapp.service.MessageService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -39,6 +41,9 @@ public class ChatController {
     @Autowired
     private DtoMapperService dtoMapperService;
 
+    @Autowired
+    private MessageService messageService;
+
     @GetMapping
     @Operation(summary = "Get all chats for the current user", description = "Retrieves a paginated list of all chats (private and group) that the currently authenticated user is a member of.")
     @ApiResponses(value = {
@@ -64,6 +69,26 @@ public class ChatController {
         }
     }
 
+    @GetMapping("/unread")
+    @Operation(summary = "Get unread message counts", description = "Retrieves the unread message count of every chat of the currently authenticated user that has unread messages, plus the total across all chats.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved unread counts.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = UnreadCountsResponseDto.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing token.", content = @Content)
+    })
+    public ResponseEntity<UnreadCountsResponseDto> getUnreadCounts(Authentication authentication) {
+        String principalName = authentication.getName();
+        logger.info("Request received for GET /api/chats/unread by principal: {}", principalName);
+        try {
+            UnreadCountsResponseDto dto = messageService.getUnreadCounts(principalName);
+            logger.info("Successfully retrieved unread counts for principal: {}. Total: {}", principalName, dto.getTotal());
+            return ResponseEntity.ok(dto);
+        } catch (Exception e) {
+            logger.error("Error retrieving unread counts for principal: {}", principalName, e);
+            return ResponseEntity.status(500).build();
+        }
+    }
+
     @GetMapping("/{chatId}")
     @Operation(summary = "Get a specific chat by its ID", description = "Retrieves the details of a single chat, provided the authenticated user is a member.")
     @ApiResponses(value = {
@@ -186,4 +211,30 @@ public class ChatController {
             return ResponseEntity.notFound().build(); // Or a more specific error
         }
     }
+
+    @PutMapping("/{chatId}/read")
+    @Operation(summary = "Mark a chat as read", description = "Advances the authenticated user's read watermark in the chat: every message with a sequence number up to upTo (or every message when omitted) is read. The watermark never moves backwards.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully updated the read watermark.", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing token.", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User is not a member of this chat.", content = @Content)
+    })
+    public ResponseEntity<Void> markChatAsRead(
+            @Parameter(description = "The unique ID of the chat.", required = true) @PathVariable Long chatId,
+            @Parameter(description = "Sequence number of the last message read. Defaults to the latest message.") @RequestParam(required = false) Long upTo,
+            Authentication authentication) {
+        String principalName = authentication.getName();
+        logger.info("Request received for PUT /api/chats/{}/read by principal: {}. upTo: {}", chatId, principalName, upTo);
+        try {
+            messageService.markChatAsRead(chatId, principalName, upTo);
+            logger.info("Successfully marked chat ID: {} as read up to {} for principal: {}", chatId, upTo, principalName);
+            return ResponseEntity.ok().build();
+        } catch (SecurityException e) {
+            logger.warn("Access denied to chat ID: {} for principal: {}", chatId, principalName);
+            return ResponseEntity.status(403).build();
+        } catch (Exception e) {
+            logger.error("Error marking chat ID: {} as read by principal: {}", chatId, principalName, e);
+            return ResponseEntity.status(500).build();
+        }
+    }
 }
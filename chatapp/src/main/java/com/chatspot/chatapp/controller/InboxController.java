@@ -0,0 +1,59 @@
+package com.chatspot.chatapp.controller;
+
+import com.chatspot.chatapp.common.dto.response.InboxEntryDto;
+import com.chatspot.chatapp.service.ChatService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/inbox")
+@Tag(name = "Inbox", description = "Endpoint for the current user's chat list with last message previews.")
+@SecurityRequirement(name = "bearerAuth")
+public class InboxController {
+
+    private static final Logger logger = LoggerFactory.getLogger(InboxController.class);
+
+    @Autowired
+    private ChatService chatService;
+
+    @GetMapping
+    @Operation(summary = "Get the current user's inbox", description = "Retrieves the chats of the currently authenticated user, most recently active first, each with a preview of its last message, the sender of that message and the unread count. No total count is computed.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved inbox.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Slice.class, subTypes = {InboxEntryDto.class}))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing token.", content = @Content)
+    })
+    public ResponseEntity<Slice<InboxEntryDto>> getInbox(
+            Authentication authentication,
+            @Parameter(description = "The page number to retrieve.") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "The number of chats per page (1-100).") @RequestParam(defaultValue = "30") int size) {
+        String principalName = authentication.getName();
+        logger.info("Request received for GET /api/inbox by principal: {}. Page: {}, Size: {}", principalName, page, size);
+        try {
+            int boundedSize = Math.max(1, Math.min(size, 100));
+            Slice<InboxEntryDto> inbox = chatService.getInbox(principalName, PageRequest.of(Math.max(page, 0), boundedSize));
+            logger.info("Successfully retrieved {} inbox entries for principal: {}", inbox.getNumberOfElements(), principalName);
+            return ResponseEntity.ok(inbox);
+        } catch (Exception e) {
+            logger.error("Error retrieving inbox for principal: {}", principalName, e);
+            return ResponseEntity.status(500).build();
+        }
+    }
+}
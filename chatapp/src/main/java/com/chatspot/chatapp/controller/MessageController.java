@@ -21,12 +21,15 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -44,7 +47,7 @@ public class MessageController {
     private DtoMapperService dtoMapperService;
 
     @GetMapping("/chat/{chatId}")
-    @Operation(summary = "Get messages for a chat", description = "Retrieves a paginated list of messages for a specific chat. The user must be a member of the chat.")
+    @Operation(summary = "Get messages for a chat", deprecated = true, description = "Retrieves a paginated list of messages for a specific chat. The user must be a member of the chat. Deprecated: use /chat/{chatId}/history, whose cursors stay put while new messages arrive.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved messages.",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = Page.class))),
@@ -72,6 +75,44 @@ public class MessageController {
         }
     }
 
+    @GetMapping("/chat/{chatId}/history")
+    @Operation(summary = "Get message history for a chat using a cursor", description = "Retrieves messages newest first, positioned by sequence number cursor (before, after or around) or by date (at). Without a cursor the latest messages are returned. No total count is computed.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved messages.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Slice.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request - More than one cursor was given.", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing token.", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User is not a member of this chat.", content = @Content)
+    })
+    public ResponseEntity<Slice<MessageResponseDto>> getChatHistory(
+            @Parameter(description = "The unique ID of the chat.", required = true) @PathVariable Long chatId,
+            Authentication authentication,
+            @Parameter(description = "Return messages with a sequence number lower than this one.") @RequestParam(required = false) Long before,
+            @Parameter(description = "Return messages with a sequence number higher than this one.") @RequestParam(required = false) Long after,
+            @Parameter(description = "Return messages centered on this sequence number.") @RequestParam(required = false) Long around,
+            @Parameter(description = "Return messages centered on the first message sent at or after this date-time.") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+            @Parameter(description = "The maximum number of messages to return (1-200).") @RequestParam(defaultValue = "50") int limit) {
+        String principalName = authentication.getName();
+        logger.info("Request received for GET /api/messages/chat/{}/history by principal: {}. before: {}, after: {}, around: {}, at: {}, limit: {}",
+                chatId, principalName, before, after, around, at, limit);
+        try {
+            int boundedLimit = Math.max(1, Math.min(limit, 200));
+            Slice<Message> messages = messageService.getChatHistory(chatId, principalName, before, after, around, at, boundedLimit);
+            Slice<MessageResponseDto> dtoSlice = dtoMapperService.toMessageResponseDtoSlice(messages, true);
+            logger.info("Successfully retrieved {} messages for chat ID: {}", dtoSlice.getNumberOfElements(), chatId);
+            return ResponseEntity.ok(dtoSlice);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid history request for chat ID: {}. Error: {}", chatId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (SecurityException e) {
+            logger.warn("Access denied to history of chat ID: {} for principal: {}", chatId, principalName);
+            return ResponseEntity.status(403).build();
+        } catch (Exception e) {
+            logger.error("Error retrieving history for chat ID: {} for principal: {}", chatId, principalName, e);
+            return ResponseEntity.status(500).build();
+        }
+    }
+
     @PostMapping(value = "/chat/{chatId}", consumes = {MediaType.MULTIPART_FORM_DATA_VALUE})
     @Operation(summary = "Send a message to a chat", description = "Sends a new message to a chat. The message can be plain text, a media file, or both.")
     @ApiResponses(value = {
@@ -115,12 +156,13 @@ public class MessageController {
     })
     public ResponseEntity<MessageResponseDto> addReaction(
             @Parameter(description = "The unique ID of the message.", required = true) @PathVariable Long messageId,
+            @Parameter(description = "The message's createdAt, as returned with it. Lets the lookup read the one month partition holding the message.") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdAt,
             @RequestBody AddReactionRequest request,
             Authentication authentication) {
         String principalName = authentication.getName();
         logger.info("Request received to add reaction '{}' to message: {} by principal: {}", request.getReactionType(), messageId, principalName);
         try {
-            Message message = messageService.addReaction(messageId, principalName, request.getReactionType());
+            Message message = messageService.addReaction(messageId, createdAt, principalName, request.getReactionType());
             MessageResponseDto dto = dtoMapperService.toMessageResponseDto(message, false);
             logger.info("Successfully added reaction to message: {}", messageId);
             return ResponseEntity.ok(dto);
@@ -140,11 +182,12 @@ public class MessageController {
     })
     public ResponseEntity<MessageResponseDto> removeReaction(
             @Parameter(description = "The unique ID of the message.", required = true) @PathVariable Long messageId,
+            @Parameter(description = "The message's createdAt, as returned with it. Lets the lookup read the one month partition holding the message.") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdAt,
             Authentication authentication) {
         String principalName = authentication.getName();
         logger.info("Request received to remove reaction from message: {} by principal: {}", messageId, principalName);
         try {
-            Message message = messageService.removeReaction(messageId, principalName);
+            Message message = messageService.removeReaction(messageId, createdAt, principalName);
             MessageResponseDto dto = dtoMapperService.toMessageResponseDto(message, false);
             logger.info("Successfully removed reaction from message: {}", messageId);
             return ResponseEntity.ok(dto);
@@ -155,7 +198,7 @@ public class MessageController {
     }
 
     @PutMapping("/{messageId}/read")
-    @Operation(summary = "Mark a message as read", description = "Marks a specific message as read by the authenticated user. This is typically used for tracking read receipts.")
+    @Operation(summary = "Mark a message as read", description = "Marks a specific message, and every earlier message of its chat, as read by the authenticated user. Equivalent to PUT /api/chats/{chatId}/read?upTo={seq}.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully marked message as read.", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing token.", content = @Content),
@@ -163,11 +206,12 @@ public class MessageController {
     })
     public ResponseEntity<Void> markAsRead(
             @Parameter(description = "The unique ID of the message.", required = true) @PathVariable Long messageId,
+            @Parameter(description = "The message's createdAt, as returned with it. Lets the lookup read the one month partition holding the message.") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdAt,
             Authentication authentication) {
         String principalName = authentication.getName();
         logger.info("Request received to mark message: {} as read by principal: {}", messageId, principalName);
         try {
-            messageService.markAsRead(messageId, principalName);
+            messageService.markAsRead(messageId, createdAt, principalName);
             logger.info("Successfully marked message: {} as read.", messageId);
             return ResponseEntity.ok().build();
         } catch (Exception e) {
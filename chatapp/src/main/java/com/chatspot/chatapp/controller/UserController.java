@@ -1,8 +1,10 @@
 package com.chatspot.chatapp.controller;
 
 import com.chatspot.chatapp.common.dto.request.UpdateProfileRequest;
+import com.chatspot.chatapp.common.dto.response.UserPresenceDto;
 import com.chatspot.chatapp.entity.user.User;
 import com.chatspot.chatapp.entity.user.UserResponseDto;
+import com.chatspot.chatapp.service.ContactPresenceService;
 import com.chatspot.chatapp.service.DtoMapperService;
 import com.chatspot.chatapp.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -39,6 +41,9 @@ public class UserController {
     @Autowired
     private DtoMapperService dtoMapperService;
 
+    @Autowired
+    private ContactPresenceService contactPresenceService;
+
     @GetMapping("/profile")
     @Operation(summary = "Get current user's profile", description = "Fetches the complete profile for the currently authenticated user.")
     @ApiResponses(value = {
@@ -142,4 +147,25 @@ public class UserController {
             return ResponseEntity.status(500).build();
         }
     }
+
+    @GetMapping("/presence")
+    @Operation(summary = "Get the presence of the current user's contacts", description = "Returns online state, chosen status and last seen time of every user the current user shares a chat with. Clients load this once, then apply the diffs pushed to /user/queue/presence.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved contact presence.",
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = UserPresenceDto.class)))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing token.", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content)
+    })
+    public ResponseEntity<List<UserPresenceDto>> getContactPresence(Authentication authentication) {
+        String principalName = authentication.getName();
+        logger.info("Request received for GET /api/users/presence by principal: {}", principalName);
+        try {
+            List<UserPresenceDto> presence = contactPresenceService.snapshot(principalName);
+            logger.info("Retrieved presence of {} contacts for principal: {}", presence.size(), principalName);
+            return ResponseEntity.ok(presence);
+        } catch (Exception e) {
+            logger.error("Error retrieving contact presence for principal: {}", principalName, e);
+            return ResponseEntity.status(500).build();
+        }
+    }
 }
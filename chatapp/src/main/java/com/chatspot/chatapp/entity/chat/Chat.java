@@ -2,10 +2,12 @@ package com.chatspot.chatapp.entity.chat;
 
 import com.chatspot.chatapp.common.BaseAuditing;
 import com.chatspot.chatapp.entity.message.Message;
+import com.chatspot.chatapp.entity.message.MessageType;
 import com.chatspot.chatapp.entity.user.User;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -41,6 +43,27 @@ public class Chat extends BaseAuditing {
     @JoinColumn(name = "created_by")
     private User createdBy;
 
+    // Last sequence number handed out to a message in this chat; only ever advanced by ChatRepository.nextMessageSeq
+    @Column(name = "last_message_seq", columnDefinition = "bigint default 0 not null", insertable = false, updatable = false)
+    private Long lastMessageSeq;
+
+    // Inbox preview of the latest message; written only by ChatRepository.recordLastMessage
+    @Column(name = "last_message_id", insertable = false, updatable = false)
+    private Long lastMessageId;
+
+    @Column(name = "last_message_preview", insertable = false, updatable = false)
+    private String lastMessagePreview;
+
+    @Column(name = "last_message_sender_id", insertable = false, updatable = false)
+    private String lastMessageSenderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "last_message_type", insertable = false, updatable = false)
+    private MessageType lastMessageType;
+
+    @Column(name = "last_activity_at", columnDefinition = "timestamp(6) default now() not null", insertable = false, updatable = false)
+    private LocalDateTime lastActivityAt;
+
         public void addParticipant(User user, ParticipantRole role) {
         ChatParticipantInfo participantInfo = new ChatParticipantInfo(this, user, role);
         participants.add(participantInfo);
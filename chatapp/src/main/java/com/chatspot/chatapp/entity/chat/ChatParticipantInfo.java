@@ -37,6 +37,18 @@ public class ChatParticipantInfo {
     private LocalDateTime leftAt;
     private LocalDateTime lastReadAt;
 
+    // Every message of the chat with seq <= lastReadSeq has been read; only ever advanced by ChatParticipantRepository.advanceReadWatermark
+    @Column(name = "last_read_seq", columnDefinition = "bigint default 0 not null", insertable = false, updatable = false)
+    private Long lastReadSeq;
+
+    // Messages from other participants above the watermark; maintained by ChatParticipantRepository only
+    @Column(name = "unread_count", columnDefinition = "integer default 0 not null", insertable = false, updatable = false)
+    private Integer unreadCount;
+
+    // Copy of the chat's last activity, so the inbox is ordered by an index on this table alone
+    @Column(name = "last_activity_at", columnDefinition = "timestamp(6) default now() not null", insertable = false, updatable = false)
+    private LocalDateTime lastActivityAt;
+
     public ChatParticipantInfo(Chat chat, User user, ParticipantRole role) {
         this.id = new ChatParticipantId(chat.getId(), user.getId());
         this.chat = chat;
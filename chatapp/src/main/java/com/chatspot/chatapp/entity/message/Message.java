@@ -7,9 +7,11 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @Data
@@ -30,6 +32,10 @@ public class Message extends BaseAuditing {
     @JoinColumn(name = "sender_id", nullable = false)
     private User sender;
 
+    // Per-chat, gap-free ordering key assigned at insert time
+    @Column(nullable = false, updatable = false)
+    private Long seq;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private MessageType type;
@@ -51,50 +57,28 @@ public class Message extends BaseAuditing {
 
     private LocalDateTime deletedAt;
 
-    @ElementCollection(fetch = FetchType.LAZY)
-    @CollectionTable(
-            name = "message_reactions",
-            joinColumns = @JoinColumn(name = "message_id"),
-            uniqueConstraints = @UniqueConstraint(columnNames = {"message_id", "user_id"})
-    )
+    // Rows are owned by MessageReaction/MessageDeliveryInfo, so changing one never rewrites the others
+    @OneToMany(mappedBy = "message")
+    @BatchSize(size = 100)
     private List<MessageReaction> reactions = new ArrayList<>();
 
-    @ElementCollection(fetch = FetchType.LAZY)
-    @CollectionTable(
-            name = "message_delivery_status",
-            joinColumns = @JoinColumn(name = "message_id")
-    )
+    @OneToMany(mappedBy = "message", cascade = CascadeType.PERSIST)
+    @BatchSize(size = 100)
     private List<MessageDeliveryInfo> deliveryStatus = new ArrayList<>();
 
 
-    public void addReaction(User user, ReactionType reactionType) {
-        // Remove existing and update new reaction for the same user
-        removeReaction(user);
-        reactions.add(new MessageReaction(user, reactionType));
-    }
-
-    public void removeReaction(User user) {
-        reactions.removeIf(r -> r.getUser().getId().equals(user.getId()));
-    }
-
-
-    public void updateDeliveryStatus(User user, DeliveryStatus status) {
-        MessageDeliveryInfo info = deliveryStatus.stream()
-                .filter(d -> d.getUser().getId().equals(user.getId()))
-                .findFirst()
-                .orElse(null);
-
-        if (info == null) {
-            info = new MessageDeliveryInfo(user, status);
-            deliveryStatus.add(info);
-        } else {
-            info.setStatus(status);
-            if (status == DeliveryStatus.DELIVERED) {
-                info.setDeliveredAt(LocalDateTime.now());
-            } else if (status == DeliveryStatus.READ) {
-                info.setReadAt(LocalDateTime.now());
-            }
+    // New message: one SENT row per recipient, inserted as one JDBC batch on flush
+    public void initDeliveryStatus(Collection<User> recipients) {
+        for (User recipient : recipients) {
+            deliveryStatus.add(new MessageDeliveryInfo(this, recipient, DeliveryStatus.SENT));
         }
     }
 
+    // Runs after the auditing listener has set createdDate: collection rows are routed to the
+    // partition of their message's month, so they need the final value before the flush
+    @PrePersist
+    private void stampPartitionKey() {
+        deliveryStatus.forEach(info -> info.setMessageCreatedAt(getCreatedDate()));
+        reactions.forEach(reaction -> reaction.setMessageCreatedAt(getCreatedDate()));
+    }
 }
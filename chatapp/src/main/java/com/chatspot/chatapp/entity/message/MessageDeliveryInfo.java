@@ -4,16 +4,32 @@ import com.chatspot.chatapp.entity.user.User;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Embeddable
+@EqualsAndHashCode(exclude = "message")
+@ToString(exclude = "message")
+@Entity
+@Table(name = "message_delivery_status",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"message_id", "user_id", "message_created_at"}))
 public class MessageDeliveryInfo {
+
+    @EmbeddedId
+    private MessageUserId id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @MapsId("messageId")
+    @JoinColumn(name = "message_id")
+    private Message message;
+
     @ManyToOne
+    @MapsId("userId")
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
     
@@ -23,8 +39,14 @@ public class MessageDeliveryInfo {
     private LocalDateTime deliveredAt;
     private LocalDateTime readAt;
 
-    public MessageDeliveryInfo(User user,DeliveryStatus status) {
+    // Partition key, copied from the owning message's created date
+    @Column(name = "message_created_at", nullable = false)
+    private LocalDateTime messageCreatedAt;
+
+    public MessageDeliveryInfo(Message message, User user, DeliveryStatus status) {
+        this.id = new MessageUserId(message.getId(), user.getId());
+        this.message = message;
         this.user = user;
         this.status = status;
     }
-}
\ No newline at end of file
+}
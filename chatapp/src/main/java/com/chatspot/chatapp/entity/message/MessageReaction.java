@@ -4,19 +4,35 @@ import com.chatspot.chatapp.entity.user.User;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 
+// Written only through MessageReactionRepository's single-row upsert and delete
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Embeddable
+@EqualsAndHashCode(exclude = "message")
+@ToString(exclude = "message")
+@Entity
+@Table(name = "message_reactions",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"message_id", "user_id", "message_created_at"}))
 public class MessageReaction {
+
+    @EmbeddedId
+    private MessageUserId id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @MapsId("messageId")
+    @JoinColumn(name = "message_id")
+    private Message message;
     
     @ManyToOne
+    @MapsId("userId")
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
     
@@ -30,9 +46,8 @@ public class MessageReaction {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
-    public MessageReaction(User user,ReactionType reaction){
-        this.user = user;
-        reactionType = reaction;
-    }
+    // Partition key, copied from the owning message's created date
+    @Column(name = "message_created_at", nullable = false)
+    private LocalDateTime messageCreatedAt;
 
-}
\ No newline at end of file
+}
@@ -14,6 +14,7 @@ import java.util.List;
 public class MessageResponseDto {
     private Long id;
     private Long chatId;
+    private Long seq;
     private UserResponseDto sender;
     private MessageType type;
     private String content;
@@ -37,7 +38,7 @@ public class MessageResponseDto {
     private LocalDateTime updatedAt;
     
     // Constructor without media data (for cases where we don't need to load media files)
-    public MessageResponseDto(Long id, Long chatId, UserResponseDto sender, MessageType type, 
+    public MessageResponseDto(Long id, Long chatId, Long seq, UserResponseDto sender, MessageType type, 
                              String content, String fileName, String filePath, String fileUrl, 
                              Long fileSize, String mimeType, MessageStatus status, Boolean isDeleted, 
                              LocalDateTime deletedAt, List<MessageReactionDto> reactions,
@@ -45,6 +46,7 @@ public class MessageResponseDto {
                              LocalDateTime updatedAt) {
         this.id = id;
         this.chatId = chatId;
+        this.seq = seq;
         this.sender = sender;
         this.type = type;
         this.content = content;
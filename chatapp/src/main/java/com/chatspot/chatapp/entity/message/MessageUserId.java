@@ -0,0 +1,20 @@
+package com.chatspot.chatapp.entity.message;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageUserId implements Serializable {
+    @Column(name = "message_id")
+    private Long messageId;
+    @Column(name = "user_id")
+    private String userId;
+}
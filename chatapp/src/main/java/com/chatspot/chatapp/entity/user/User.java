@@ -9,6 +9,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 
 
 import java.time.LocalDateTime;
@@ -19,6 +20,8 @@ import java.time.LocalDateTime;
 @EqualsAndHashCode(callSuper = false)
 @Table(name = "users")
 @Entity
+// Participant users of a group chat load a batch at a time instead of one select per member
+@BatchSize(size = 500)
 public class User extends BaseAuditing {
 
     @Id
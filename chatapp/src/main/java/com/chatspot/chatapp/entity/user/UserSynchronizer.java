@@ -23,8 +23,8 @@ public class UserSynchronizer {
         getUserEmail(token).ifPresent(email -> {
             log.info("Checking if user with email {} already exists", email);
 
-            Optional<User> existingUser = userRepository.findByEmail(email);
-            if (existingUser.isEmpty()) {
+            // Existence probe on the unique email index; no need to materialize the user
+            if (!userRepository.existsByEmail(email)) {
                 // Only create user if not exists
                 User newUser = userMapper.fromTokenAttributes(token.getClaims());
                 userRepository.save(newUser);
@@ -0,0 +1,80 @@
+package com.chatspot.chatapp.eventbus;
+
+import com.chatspot.chatapp.kafka.event.DeliveryStatusEvent;
+import com.chatspot.chatapp.kafka.event.MessageEvent;
+import com.chatspot.chatapp.kafka.event.ReactionEvent;
+import com.chatspot.chatapp.service.DeliveryStatusService;
+import com.chatspot.chatapp.websocket.NodeEventRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What happens to an event once it comes off the bus, whichever bus delivered it.
+ */
+@Service
+@Slf4j
+public class ChatEventHandler {
+
+    private final NodeEventRouter nodeEventRouter;
+    private final DeliveryStatusService deliveryStatusService;
+
+    public ChatEventHandler(NodeEventRouter nodeEventRouter, DeliveryStatusService deliveryStatusService) {
+        this.nodeEventRouter = nodeEventRouter;
+        this.deliveryStatusService = deliveryStatusService;
+    }
+
+    public void handleMessage(MessageEvent event) {
+        try {
+            // Push to every node holding a session of a chat participant
+            nodeEventRouter.route(event);
+
+            // Mark connected recipients as delivered
+            deliveryStatusService.markDeliveredToConnectedRecipients(event);
+        } catch (Exception e) {
+            log.error("Error processing message event {}: {}", event.getMessageId(), e.getMessage());
+        }
+    }
+
+    // Status and reaction events are notifications: the REST call that produced them has already stored the
+    // change, so they are only broadcast, coalesced to the latest state per (id, user).
+    public void handleDeliveryStatuses(Collection<DeliveryStatusEvent> events) {
+        Map<CoalesceKey, DeliveryStatusEvent> statuses = new LinkedHashMap<>();
+        Map<CoalesceKey, DeliveryStatusEvent> readReceipts = new LinkedHashMap<>();
+        List<DeliveryStatusEvent> aggregatedReceipts = new ArrayList<>();
+        for (DeliveryStatusEvent event : events) {
+            if (event.getUserIds() != null) {
+                aggregatedReceipts.add(event);
+            } else if (event.getUpToSeq() != null) {
+                readReceipts.merge(new CoalesceKey(event.getChatId(), event.getUserId()), event,
+                        (previous, current) -> current.getUpToSeq() >= previous.getUpToSeq() ? current : previous);
+            } else {
+                // States only move forward, so the highest one seen wins
+                statuses.merge(new CoalesceKey(event.getMessageId(), event.getUserId()), event,
+                        (previous, current) -> current.getStatus().compareTo(previous.getStatus()) >= 0 ? current : previous);
+            }
+        }
+
+        List<DeliveryStatusEvent> broadcasts = new ArrayList<>(statuses.values());
+        broadcasts.addAll(aggregatedReceipts);
+        broadcasts.addAll(readReceipts.values());
+        nodeEventRouter.routeAll(broadcasts);
+    }
+
+    public void handleReactions(Collection<ReactionEvent> events) {
+        // Events of one message arrive in order, so the last one is the latest state
+        Map<CoalesceKey, ReactionEvent> reactions = new LinkedHashMap<>();
+        for (ReactionEvent event : events) {
+            reactions.put(new CoalesceKey(event.getMessageId(), event.getUserId()), event);
+        }
+        nodeEventRouter.routeAll(reactions.values());
+    }
+
+    private record CoalesceKey(Long id, String userId) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.chatspot.chatapp.eventbus;
+
+import com.chatspot.chatapp.kafka.event.ChatEvent;
+
+/**
+ * Carries chat events from the code that changed state to the handlers that push them to clients.
+ * <p>
+ * Selected with {@code application.event-bus.mode}:
+ * <ul>
+ *     <li>{@code kafka} (default): written to the outbox in the caller's transaction and relayed through Kafka,
+ *     for any number of nodes;</li>
+ *     <li>{@code in-memory}: handed to in-process workers once the caller's transaction commits, for single-node
+ *     deployments and tests. Needs no broker; events in flight are lost if the process dies, and events are
+ *     dropped when the workers fall behind.</li>
+ * </ul>
+ */
+public interface EventBus {
+
+    String MODE_PROPERTY = "application.event-bus.mode";
+    String MODE_KAFKA = "kafka";
+    String MODE_IN_MEMORY = "in-memory";
+
+    /**
+     * Publishes the event to the topic. Events with the same chat are handled in publish order.
+     */
+    void publish(String topic, String key, ChatEvent event);
+}
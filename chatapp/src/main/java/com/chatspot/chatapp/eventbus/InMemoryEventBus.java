@@ -0,0 +1,190 @@
+package com.chatspot.chatapp.eventbus;
+
+import com.chatspot.chatapp.kafka.event.ChatEvent;
+import com.chatspot.chatapp.kafka.event.DeliveryStatusEvent;
+import com.chatspot.chatapp.kafka.event.MessageEvent;
+import com.chatspot.chatapp.kafka.event.ReactionEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-node event bus: events go straight to a small pool of worker threads instead of through the
+ * outbox and Kafka.
+ * <p>
+ * Each worker owns a bounded queue (a lock-free queue with an atomic size bound) and handles its events one at
+ * a time. Events are assigned to a worker by chat, so each chat keeps its publish order. Events are enqueued
+ * after the publishing transaction commits. A publisher waits up to offer-timeout-ms when its worker's queue
+ * is full, then the event is dropped and counted; workers never wait on a queue themselves.
+ * <p>
+ * Dropping is part of this mode's contract: nothing is retried. A dropped message event leaves the message
+ * stored but neither pushed to connected recipients nor marked delivered to them; they see it when they next
+ * load the chat's history. Drops are counted per event type in {@code chatapp.eventbus.rejected}.
+ */
+@Component
+@ConditionalOnProperty(name = EventBus.MODE_PROPERTY, havingValue = EventBus.MODE_IN_MEMORY)
+@Slf4j
+public class InMemoryEventBus implements EventBus {
+
+    // The handler publishes events itself (delivery receipts), so it is resolved lazily
+    private final ObjectProvider<ChatEventHandler> chatEventHandler;
+    private final MeterRegistry meterRegistry;
+    private final Worker[] workers;
+
+    @Value("${application.event-bus.in-memory.offer-timeout-ms:1000}")
+    private long offerTimeoutMs;
+
+    private volatile boolean running = true;
+
+    public InMemoryEventBus(ObjectProvider<ChatEventHandler> chatEventHandler,
+                            MeterRegistry meterRegistry,
+                            @Value("${application.event-bus.in-memory.workers:4}") int workerCount,
+                            @Value("${application.event-bus.in-memory.queue-capacity:10000}") int queueCapacity) {
+        this.chatEventHandler = chatEventHandler;
+        this.meterRegistry = meterRegistry;
+        this.workers = new Worker[Math.max(1, workerCount)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(queueCapacity);
+        }
+        meterRegistry.gauge("chatapp.eventbus.queued", this, InMemoryEventBus::queued);
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < workers.length; i++) {
+            Thread thread = new Thread(workers[i], "event-bus-" + i);
+            thread.setDaemon(true);
+            workers[i].thread = thread;
+            thread.start();
+        }
+        log.info("In-memory event bus started with {} workers", workers.length);
+    }
+
+    // Workers drain what is already queued before they exit
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Worker worker : workers) {
+            LockSupport.unpark(worker.thread);
+        }
+        for (Worker worker : workers) {
+            worker.thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    @Override
+    public void publish(String topic, String key, ChatEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(key, event);
+                }
+            });
+        } else {
+            enqueue(key, event);
+        }
+    }
+
+    private void enqueue(String key, ChatEvent event) {
+        Object shardKey = event.getChatId() != null ? event.getChatId() : key;
+        Worker worker = workers[Math.floorMod(Objects.hashCode(shardKey), workers.length)];
+        if (worker.offer(event)) {
+            return;
+        }
+        if (!isWorkerThread()) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+            while (System.nanoTime() < deadline) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                if (worker.offer(event)) {
+                    return;
+                }
+            }
+        }
+        meterRegistry.counter("chatapp.eventbus.rejected", "event", event.getClass().getSimpleName()).increment();
+        log.warn("Event bus queue full, dropped {} {} of chat {}", event.getClass().getSimpleName(), event.getEventId(),
+                event.getChatId());
+    }
+
+    private void dispatch(ChatEvent event) {
+        ChatEventHandler handler = chatEventHandler.getObject();
+        try {
+            if (event instanceof MessageEvent message) {
+                handler.handleMessage(message);
+            } else if (event instanceof DeliveryStatusEvent status) {
+                handler.handleDeliveryStatuses(List.of(status));
+            } else if (event instanceof ReactionEvent reaction) {
+                handler.handleReactions(List.of(reaction));
+            }
+        } catch (Exception e) {
+            log.error("Error handling event {}: {}", event.getEventId(), e.getMessage());
+        }
+    }
+
+    private boolean isWorkerThread() {
+        Thread current = Thread.currentThread();
+        for (Worker worker : workers) {
+            if (worker.thread == current) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private double queued() {
+        int total = 0;
+        for (Worker worker : workers) {
+            total += worker.size.get();
+        }
+        return total;
+    }
+
+    private final class Worker implements Runnable {
+        private final ConcurrentLinkedQueue<ChatEvent> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final int capacity;
+        private volatile Thread thread;
+
+        Worker(int capacity) {
+            this.capacity = capacity;
+        }
+
+        boolean offer(ChatEvent event) {
+            if (size.incrementAndGet() > capacity) {
+                size.decrementAndGet();
+                return false;
+            }
+            queue.offer(event);
+            // A permit given before the worker parks makes that park return at once, so no wakeup is lost
+            LockSupport.unpark(thread);
+            return true;
+        }
+
+        @Override
+        public void run() {
+            while (running || !queue.isEmpty()) {
+                ChatEvent event = queue.poll();
+                if (event == null) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                size.decrementAndGet();
+                dispatch(event);
+            }
+        }
+    }
+}
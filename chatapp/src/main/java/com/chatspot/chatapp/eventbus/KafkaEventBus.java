@@ -0,0 +1,33 @@
+package com.chatspot.chatapp.eventbus;
+
+import com.chatspot.chatapp.entity.outbox.OutboxEvent;
+import com.chatspot.chatapp.kafka.event.ChatEvent;
+import com.chatspot.chatapp.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Only appends to the outbox, so the event commits or rolls back with the caller's transaction.
+// OutboxRelay performs the actual Kafka send.
+@Component
+@ConditionalOnProperty(name = EventBus.MODE_PROPERTY, havingValue = EventBus.MODE_KAFKA, matchIfMissing = true)
+public class KafkaEventBus implements EventBus {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public KafkaEventBus(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void publish(String topic, String key, ChatEvent event) {
+        try {
+            outboxEventRepository.save(new OutboxEvent(topic, key, objectMapper.writeValueAsString(event)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize event " + event.getEventId(), e);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.chatspot.chatapp.kafka;
+
+import com.chatspot.chatapp.eventbus.EventBus;
+import com.chatspot.chatapp.kafka.event.ChatEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recognises events that were already handled so listeners can skip them before any database or
+ * WebSocket work. Two checks per record:
+ * <ul>
+ *     <li>its eventId is in the partition's window of recent ids, which catches the same event produced
+ *     twice, e.g. when the outbox relay retries a send whose acknowledgement was lost;</li>
+ *     <li>its offset is below the group's committed offset for the partition when it was assigned to this
+ *     node, which catches a consumer seeking back over records the group has already committed.</li>
+ * </ul>
+ * Offsets are taken from the broker, never from state kept here, so a recreated topic or a reset of the
+ * group's offsets starts from the new position instead of skipping everything below an old offset.
+ * Windows belong to the current assignment and are dropped when their partitions are revoked or lost.
+ * Windows are bounded by age and by size, and ids are held as UUIDs rather than strings.
+ */
+@Component
+@ConditionalOnProperty(name = EventBus.MODE_PROPERTY, havingValue = EventBus.MODE_KAFKA, matchIfMissing = true)
+public class EventDeduplicator implements ConsumerAwareRebalanceListener {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<TopicPartition, PartitionWindow> windows = new ConcurrentHashMap<>();
+
+    @Value("${spring.kafka.consumer.group-id:chatapp-group}")
+    private String consumerGroup;
+
+    @Value("${application.dedupe.window-ms:600000}")
+    private long windowMs;
+
+    @Value("${application.dedupe.max-entries-per-partition:10000}")
+    private int maxEntriesPerPartition;
+
+    public EventDeduplicator(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isDuplicate(ConsumerRecord<?, ? extends ChatEvent> record) {
+        if (record.value() == null) {
+            return false;
+        }
+        PartitionWindow window = windowFor(record);
+        boolean duplicate;
+        synchronized (window) {
+            evictExpired(window, System.currentTimeMillis());
+            Object key = toKey(record.value().getEventId());
+            duplicate = record.offset() < window.committedOffset
+                    || (key != null && window.eventIds.containsKey(key));
+        }
+        count(record.topic(), duplicate);
+        return duplicate;
+    }
+
+    /**
+     * Returns the records of a batch that are neither already processed nor repeated within the batch.
+     */
+    public <E extends ChatEvent> List<ConsumerRecord<String, E>> filterNew(List<ConsumerRecord<String, E>> records) {
+        List<ConsumerRecord<String, E>> fresh = new ArrayList<>(records.size());
+        Set<Object> batchKeys = new HashSet<>();
+        for (ConsumerRecord<String, E> record : records) {
+            if (record.value() == null) {
+                continue;
+            }
+            Object key = toKey(record.value().getEventId());
+            if (isDuplicate(record) || (key != null && !batchKeys.add(key))) {
+                continue;
+            }
+            fresh.add(record);
+        }
+        return fresh;
+    }
+
+    public void markProcessed(ConsumerRecord<?, ? extends ChatEvent> record) {
+        Object key = record.value() != null ? toKey(record.value().getEventId()) : null;
+        if (key == null) {
+            return;
+        }
+        PartitionWindow window = windowFor(record);
+        synchronized (window) {
+            window.eventIds.put(key, System.currentTimeMillis());
+            evictOverflow(window);
+        }
+    }
+
+    public <E extends ChatEvent> void markProcessed(List<ConsumerRecord<String, E>> records) {
+        for (ConsumerRecord<String, E> record : records) {
+            markProcessed(record);
+        }
+    }
+
+    // Applied to every listener container; only the shared group's partitions are tracked
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty() || !isSharedGroup(consumer)) {
+            return;
+        }
+        Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(new HashSet<>(partitions));
+        for (TopicPartition partition : partitions) {
+            OffsetAndMetadata offset = committed.get(partition);
+            PartitionWindow window = new PartitionWindow();
+            window.committedOffset = offset != null ? offset.offset() : -1L;
+            windows.put(partition, window);
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (isSharedGroup(consumer)) {
+            partitions.forEach(windows::remove);
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        onPartitionsRevokedAfterCommit(consumer, partitions);
+    }
+
+    private boolean isSharedGroup(Consumer<?, ?> consumer) {
+        return consumerGroup.equals(consumer.groupMetadata().groupId());
+    }
+
+    // Records of a partition this node was not assigned through a rebalance start without an offset bound
+    private PartitionWindow windowFor(ConsumerRecord<?, ?> record) {
+        return windows.computeIfAbsent(new TopicPartition(record.topic(), record.partition()), partition -> new PartitionWindow());
+    }
+
+    private void evictExpired(PartitionWindow window, long now) {
+        Iterator<Long> seenAt = window.eventIds.values().iterator();
+        while (seenAt.hasNext() && now - seenAt.next() > windowMs) {
+            seenAt.remove();
+        }
+    }
+
+    private void evictOverflow(PartitionWindow window) {
+        Iterator<Object> oldest = window.eventIds.keySet().iterator();
+        while (window.eventIds.size() > maxEntriesPerPartition && oldest.hasNext()) {
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    private void count(String topic, boolean duplicate) {
+        meterRegistry.counter("chatapp.kafka.dedupe", "topic", topic, "result", duplicate ? "hit" : "miss").increment();
+    }
+
+    // 16 bytes of payload instead of a 36 character string
+    private static Object toKey(String eventId) {
+        if (eventId == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(eventId);
+        } catch (IllegalArgumentException e) {
+            return eventId;
+        }
+    }
+
+    // Insertion-ordered, so the oldest ids are always at the head
+    private static final class PartitionWindow {
+        private final LinkedHashMap<Object, Long> eventIds = new LinkedHashMap<>();
+        private long committedOffset = -1L;
+    }
+}
@@ -1,132 +1,71 @@
 package com.chatspot.chatapp.kafka;
 
-import com.chatspot.chatapp.entity.message.DeliveryStatus;
-import com.chatspot.chatapp.entity.message.Message;
-import com.chatspot.chatapp.entity.user.User;
+import com.chatspot.chatapp.eventbus.ChatEventHandler;
+import com.chatspot.chatapp.eventbus.EventBus;
+import com.chatspot.chatapp.kafka.event.ChatEvent;
 import com.chatspot.chatapp.kafka.event.DeliveryStatusEvent;
 import com.chatspot.chatapp.kafka.event.MessageEvent;
 import com.chatspot.chatapp.kafka.event.ReactionEvent;
-import com.chatspot.chatapp.repository.MessageRepository;
-import com.chatspot.chatapp.repository.UserRepository;
-import com.chatspot.chatapp.websocket.WebSocketMessageBroadcaster;
+import com.chatspot.chatapp.websocket.NodeEventRouter;
 
-import jakarta.persistence.EntityNotFoundException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Service
+@ConditionalOnProperty(name = EventBus.MODE_PROPERTY, havingValue = EventBus.MODE_KAFKA, matchIfMissing = true)
 public class KafkaConsumerService {
     
-    private final WebSocketMessageBroadcaster webSocketBroadcaster;
-    private final MessageRepository messageRepository;
-    private final UserRepository userRepository;
+    private final ChatEventHandler chatEventHandler;
+    private final NodeEventRouter nodeEventRouter;
+    private final EventDeduplicator eventDeduplicator;
     
-    public KafkaConsumerService(WebSocketMessageBroadcaster webSocketBroadcaster,
-                               MessageRepository messageRepository,
-                               UserRepository userRepository) {
-        this.webSocketBroadcaster = webSocketBroadcaster;
-        this.messageRepository = messageRepository;
-        this.userRepository = userRepository;
+    public KafkaConsumerService(ChatEventHandler chatEventHandler,
+                               NodeEventRouter nodeEventRouter,
+                               EventDeduplicator eventDeduplicator) {
+        this.chatEventHandler = chatEventHandler;
+        this.nodeEventRouter = nodeEventRouter;
+        this.eventDeduplicator = eventDeduplicator;
     }
     
     @KafkaListener(topics = "chat-messages", groupId = "chatapp-group")
-    public void consumeMessageEvent(MessageEvent event) {
-        // Process message event and broadcast via WebSocket
-        try {
-            // Broadcast to chat participants via WebSocket
-            webSocketBroadcaster.broadcastNewMessage(event);
-            
-            // Update delivery status for offline users
-            updateDeliveryStatusForOfflineUsers(event);
-            
-        } catch (Exception e) {
-            // Handle error and possibly retry
-            System.err.println("Error processing message event: " + e.getMessage());
+    public void consumeMessageEvent(ConsumerRecord<String, MessageEvent> record) {
+        if (eventDeduplicator.isDuplicate(record)) {
+            return;
         }
+        chatEventHandler.handleMessage(record.value());
+        eventDeduplicator.markProcessed(record);
     }
     
-    @KafkaListener(topics = "delivery-status", groupId = "chatapp-group")
-    public void consumeDeliveryStatusEvent(DeliveryStatusEvent event) {
-        try {
-            // Update delivery status in database
-            updateMessageDeliveryStatus(event);
-            
-            // Broadcast delivery status to message sender
-            webSocketBroadcaster.broadcastDeliveryStatus(event);
-            
-        } catch (Exception e) {
-            System.err.println("Error processing delivery status event: " + e.getMessage());
-        }
-    }
-    
-    @KafkaListener(topics = "message-reactions", groupId = "chatapp-group")
-    public void consumeReactionEvent(ReactionEvent event) {
-        try {
-            // Update reaction in database
-            updateMessageReaction(event);
-            
-            // Broadcast reaction to chat participants
-            webSocketBroadcaster.broadcastReaction(event);
-            
-        } catch (Exception e) {
-            System.err.println("Error processing reaction event: " + e.getMessage());
-        }
+    // Batch listeners: the handler coalesces a whole poll. A failure throws, so the container retries the batch.
+    @KafkaListener(topics = "delivery-status", groupId = "chatapp-group", containerFactory = "batchKafkaListenerContainerFactory")
+    public void consumeDeliveryStatusEvents(List<ConsumerRecord<String, DeliveryStatusEvent>> records) {
+        chatEventHandler.handleDeliveryStatuses(values(eventDeduplicator.filterNew(records)));
+        eventDeduplicator.markProcessed(records);
     }
     
-    private void updateDeliveryStatusForOfflineUsers(MessageEvent event) {
-        // Update delivery status for users who are not currently online
-        event.getRecipients().forEach(userId -> {
-            try {
-                Message message = messageRepository.findByIdWithDeliveryStatus(event.getMessageId())
-                    .orElseThrow(() -> new EntityNotFoundException("Message not found"));
-                
-                User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new EntityNotFoundException("User not found"));
-                
-                message.updateDeliveryStatus(user, DeliveryStatus.DELIVERED);
-                messageRepository.save(message);
-                
-                // Publish delivery status event
-                DeliveryStatusEvent statusEvent = new DeliveryStatusEvent();
-                statusEvent.setMessageId(event.getMessageId());
-                statusEvent.setUserId(userId);
-                statusEvent.setStatus(DeliveryStatus.DELIVERED);
-                
-                // This would trigger another Kafka event
-                
-            } catch (Exception e) {
-                System.err.println("Error updating delivery status: " + e.getMessage());
-            }
-        });
+    @KafkaListener(topics = "message-reactions", groupId = "chatapp-group", containerFactory = "batchKafkaListenerContainerFactory")
+    public void consumeReactionEvents(List<ConsumerRecord<String, ReactionEvent>> records) {
+        chatEventHandler.handleReactions(values(eventDeduplicator.filterNew(records)));
+        eventDeduplicator.markProcessed(records);
     }
-    
-    private void updateMessageDeliveryStatus(DeliveryStatusEvent event) {
-        // Update delivery status in database
-        Message message = messageRepository.findByIdWithDeliveryStatus(event.getMessageId())
-            .orElseThrow(() -> new EntityNotFoundException("Message not found"));
-        
-        User user = userRepository.findById(event.getUserId())
-            .orElseThrow(() -> new EntityNotFoundException("User not found"));
-        
-        message.updateDeliveryStatus(user, event.getStatus());
-        messageRepository.save(message);
+
+    // Events forwarded to this node by whichever node consumed them from the shared topics
+    @KafkaListener(topics = "#{@nodeSessionRegistry.topic}", groupId = "#{@nodeSessionRegistry.topic}",
+                   properties = "auto.offset.reset=latest")
+    public void consumeNodeEvent(ChatEvent event) {
+        nodeEventRouter.broadcastLocally(event);
     }
     
-
-    private void updateMessageReaction(ReactionEvent event) {
-        Message message = messageRepository.findById(event.getMessageId())
-            .orElseThrow(() -> new EntityNotFoundException("Message not found"));
-        
-        User user = userRepository.findById(event.getUserId())
-            .orElseThrow(() -> new EntityNotFoundException("User not found"));
-        
-        if (event.isRemoved()) {
-            message.removeReaction(user);
-        } else {
-            message.addReaction(user, event.getReactionType());
+    private static <T> List<T> values(List<ConsumerRecord<String, T>> records) {
+        List<T> values = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, T> record : records) {
+            values.add(record.value());
         }
-        
-        messageRepository.save(message);
+        return values;
     }
-
-}
\ No newline at end of file
+}
@@ -1,29 +1,84 @@
 package com.chatspot.chatapp.kafka;
 
+import com.chatspot.chatapp.eventbus.EventBus;
+import com.chatspot.chatapp.kafka.event.ChatEvent;
 import com.chatspot.chatapp.kafka.event.DeliveryStatusEvent;
 import com.chatspot.chatapp.kafka.event.MessageEvent;
 import com.chatspot.chatapp.kafka.event.ReactionEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
+@Slf4j
 public class KafkaProducerService {
     
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final EventBus eventBus;
+    private final MeterRegistry meterRegistry;
     
-    public KafkaProducerService(KafkaTemplate<String, Object> kafkaTemplate) {
+    public KafkaProducerService(KafkaTemplate<String, Object> kafkaTemplate,
+                                EventBus eventBus,
+                                MeterRegistry meterRegistry) {
         this.kafkaTemplate = kafkaTemplate;
+        this.eventBus = eventBus;
+        this.meterRegistry = meterRegistry;
     }
-    
+
+    // The publish* methods hand the event to the configured EventBus; neither implementation sends before
+    // the caller's transaction has committed.
     public void publishMessageEvent(MessageEvent event) {
-        kafkaTemplate.send("chat-messages", event.getChatId().toString(), event);
+        eventBus.publish("chat-messages", event.getChatId().toString(), event);
     }
     
     public void publishDeliveryStatusEvent(DeliveryStatusEvent event) {
-        kafkaTemplate.send("delivery-status", event.getMessageId().toString(), event);
+        // Read receipts are watermarks over a whole chat and carry no message id
+        Long key = event.getMessageId() != null ? event.getMessageId() : event.getChatId();
+        eventBus.publish("delivery-status", key.toString(), event);
     }
     
     public void publishReactionEvent(ReactionEvent event) {
-        kafkaTemplate.send("message-reactions", event.getMessageId().toString(), event);
+        eventBus.publish("message-reactions", event.getMessageId().toString(), event);
+    }
+
+    // Used by OutboxRelay. Completes when the broker acknowledges the record; latency and outcome are recorded per topic
+    public CompletableFuture<SendResult<String, Object>> send(String topic, String key, ChatEvent event) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<SendResult<String, Object>> future;
+        try {
+            future = kafkaTemplate.send(topic, key, event);
+        } catch (Exception e) {
+            // Serialization errors and max.block.ms timeouts are thrown instead of failing the future
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((result, ex) -> {
+            sample.stop(sendTimer(topic, ex == null ? "success" : "failure"));
+            if (ex != null) {
+                meterRegistry.counter("chatapp.kafka.send.failures", "topic", topic,
+                        "exception", rootCause(ex).getClass().getSimpleName()).increment();
+                log.warn("Kafka send of event {} to {} failed: {}", event.getEventId(), topic, rootCause(ex).getMessage());
+            }
+        });
+    }
+
+    private Timer sendTimer(String topic, String result) {
+        return Timer.builder("chatapp.kafka.send")
+                .description("Time from send until the broker acknowledges the record")
+                .tags("topic", topic, "result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static Throwable rootCause(Throwable ex) {
+        Throwable cause = ex;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause;
     }
-}
\ No newline at end of file
+}
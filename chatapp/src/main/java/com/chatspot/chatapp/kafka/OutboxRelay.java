@@ -0,0 +1,205 @@
+package com.chatspot.chatapp.kafka;
+
+import com.chatspot.chatapp.entity.outbox.OutboxEvent;
+import com.chatspot.chatapp.eventbus.EventBus;
+import com.chatspot.chatapp.kafka.event.ChatEvent;
+import com.chatspot.chatapp.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@ConditionalOnProperty(name = EventBus.MODE_PROPERTY, havingValue = EventBus.MODE_KAFKA, matchIfMissing = true)
+@Slf4j
+public class OutboxRelay {
+
+    // Covers the claim before a batch and the delete or release after it
+    private static final long LEASE_MARGIN_MS = 5_000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaProducerService kafkaProducerService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${application.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${application.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    @Value("${application.outbox.poll-interval-ms:50}")
+    private long pollIntervalMs;
+
+    // How long a single send may block before it fails, while the producer has no metadata or no buffer space
+    @Value("${spring.kafka.producer.properties.max.block.ms:60000}")
+    private long maxBlockMs;
+
+    private ThreadPoolTaskScheduler relayScheduler;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       KafkaProducerService kafkaProducerService,
+                       ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaProducerService = kafkaProducerService;
+        this.objectMapper = objectMapper;
+    }
+
+    // Its own thread: a batch can wait on the broker for seconds, and must neither hold back the node heartbeat
+    // and the other @Scheduled jobs nor be held back by them
+    @PostConstruct
+    public void start() {
+        relayScheduler = new ThreadPoolTaskScheduler();
+        relayScheduler.setPoolSize(1);
+        relayScheduler.setThreadNamePrefix("outbox-relay-");
+        relayScheduler.initialize();
+        relayScheduler.scheduleWithFixedDelay(this::relay, Duration.ofMillis(pollIntervalMs));
+    }
+
+    @PreDestroy
+    public void stop() {
+        relayScheduler.shutdown();
+    }
+
+    /**
+     * Sends one claimed batch. Events of different keys are pipelined; an event waits until the one before it
+     * with the same key is acknowledged, so when an event fails, nothing after it of its key has reached the
+     * topic, and the retry sends them in order. Keyless events go out at once.
+     * <p>
+     * Not transactional: the claim, the delete and the release each commit on their own, and nothing is
+     * locked while the relay waits on the broker.
+     */
+    public void relay() {
+        long start = System.nanoTime();
+        List<OutboxEvent> batch = new ArrayList<>(outboxEventRepository.claimNextBatch(batchSize, leaseSeconds()));
+        if (batch.isEmpty()) {
+            return;
+        }
+        batch.sort(Comparator.comparing(OutboxEvent::getId));
+
+        Deque<OutboxEvent> ready = new ArrayDeque<>();
+        Map<String, Deque<OutboxEvent>> waiting = new HashMap<>();
+        for (OutboxEvent outboxEvent : batch) {
+            String key = outboxEvent.getEventKey();
+            if (key == null) {
+                ready.add(outboxEvent);
+            } else if (waiting.containsKey(key)) {
+                waiting.get(key).add(outboxEvent);
+            } else {
+                waiting.put(key, new ArrayDeque<>());
+                ready.add(outboxEvent);
+            }
+        }
+
+        // No send starts after the deadline, and the first one that fails without reaching the producer (no
+        // metadata or buffer space within max.block.ms) stops all sending: the broker is unreachable, and every
+        // further send would block as long
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        BlockingQueue<Acknowledgement> acknowledgements = new LinkedBlockingQueue<>();
+        List<Long> sentIds = new ArrayList<>(batch.size());
+        int inFlight = 0;
+        boolean stopped = false;
+        while (true) {
+            while (!stopped && !ready.isEmpty()) {
+                if (System.nanoTime() >= deadline) {
+                    stopped = true;
+                    break;
+                }
+                OutboxEvent outboxEvent = ready.poll();
+                ChatEvent event = read(outboxEvent);
+                if (event == null) {
+                    // Can never be sent; retrying it would hold back every later event of its key for good
+                    sentIds.add(outboxEvent.getId());
+                    next(outboxEvent, waiting, ready);
+                    continue;
+                }
+                CompletableFuture<SendResult<String, Object>> future =
+                        kafkaProducerService.send(outboxEvent.getTopic(), outboxEvent.getEventKey(), event);
+                if (future.isCompletedExceptionally()) {
+                    stopped = true;
+                    break;
+                }
+                inFlight++;
+                future.whenComplete((result, ex) -> acknowledgements.add(new Acknowledgement(outboxEvent, ex == null)));
+            }
+            if (inFlight == 0) {
+                break;
+            }
+            Acknowledgement acknowledgement;
+            try {
+                acknowledgement = acknowledgements.poll(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (acknowledgement == null) {
+                // Still pending at the deadline: released below, and dropped by event id if it arrives twice
+                break;
+            }
+            inFlight--;
+            if (acknowledgement.sent()) {
+                sentIds.add(acknowledgement.outboxEvent().getId());
+                next(acknowledgement.outboxEvent(), waiting, ready);
+            }
+            // A failed event keeps the rest of its key waiting; all of them are retried on the next poll
+        }
+
+        if (!sentIds.isEmpty()) {
+            outboxEventRepository.deleteByIdIn(sentIds);
+        }
+        if (sentIds.size() < batch.size()) {
+            Set<Long> sent = new HashSet<>(sentIds);
+            List<Long> unsentIds = batch.stream().map(OutboxEvent::getId).filter(id -> !sent.contains(id)).toList();
+            outboxEventRepository.releaseClaim(unsentIds);
+        }
+        log.debug("Relayed {}/{} outbox events", sentIds.size(), batch.size());
+    }
+
+    // Makes the event after this one of the same key ready to send
+    private static void next(OutboxEvent outboxEvent, Map<String, Deque<OutboxEvent>> waiting, Deque<OutboxEvent> ready) {
+        Deque<OutboxEvent> successors = outboxEvent.getEventKey() != null ? waiting.get(outboxEvent.getEventKey()) : null;
+        if (successors != null && !successors.isEmpty()) {
+            ready.add(successors.poll());
+        }
+    }
+
+    private ChatEvent read(OutboxEvent outboxEvent) {
+        try {
+            return objectMapper.readValue(outboxEvent.getPayload(), ChatEvent.class);
+        } catch (JsonProcessingException e) {
+            log.error("Dropping unreadable outbox event {} for {}: {}", outboxEvent.getId(), outboxEvent.getTopic(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The longest a batch can hold its claim: sends start until the deadline, the last one can block for
+     * max.block.ms, and the delete or release follows. Past it, another relay may claim the rows again.
+     */
+    private double leaseSeconds() {
+        return (sendTimeoutMs + maxBlockMs + LEASE_MARGIN_MS) / 1000.0;
+    }
+
+    private record Acknowledgement(OutboxEvent outboxEvent, boolean sent) {
+    }
+}
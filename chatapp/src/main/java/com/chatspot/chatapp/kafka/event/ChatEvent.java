@@ -10,7 +10,8 @@ import java.util.UUID;
 @JsonSubTypes({
     @JsonSubTypes.Type(value = MessageEvent.class, name = "MESSAGE"),
     @JsonSubTypes.Type(value = DeliveryStatusEvent.class, name = "DELIVERY_STATUS"),
-    @JsonSubTypes.Type(value = ReactionEvent.class, name = "REACTION")
+    @JsonSubTypes.Type(value = ReactionEvent.class, name = "REACTION"),
+    @JsonSubTypes.Type(value = PresenceEvent.class, name = "PRESENCE")
 })
 public abstract class ChatEvent {
     private String eventId;
@@ -31,4 +32,7 @@ public abstract class ChatEvent {
     
     public LocalDateTime getTimestamp() { return timestamp; }
     public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+    
+    // The chat the event belongs to, used to route and order events; null for events of no chat or published without one
+    public abstract Long getChatId();
 }
\ No newline at end of file
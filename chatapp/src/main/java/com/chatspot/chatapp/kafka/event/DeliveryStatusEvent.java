@@ -2,10 +2,17 @@ package com.chatspot.chatapp.kafka.event;
 
 import com.chatspot.chatapp.entity.message.DeliveryStatus;
 
+import java.util.List;
+
 public class DeliveryStatusEvent extends ChatEvent {
     private Long messageId;
+    private Long chatId;
     private String userId;
+    // Set for aggregated receipts: every listed recipient reached the status, already stored by the producer
+    private List<String> userIds;
     private DeliveryStatus status;
+    // Set for READ receipts: every message of chatId with seq <= upToSeq is read by userId
+    private Long upToSeq;
     
     public DeliveryStatusEvent() {
         setEventType("DELIVERY_STATUS");
@@ -15,9 +22,18 @@ public class DeliveryStatusEvent extends ChatEvent {
     public Long getMessageId() { return messageId; }
     public void setMessageId(Long messageId) { this.messageId = messageId; }
     
+    public Long getChatId() { return chatId; }
+    public void setChatId(Long chatId) { this.chatId = chatId; }
+    
     public String getUserId() { return userId; }
     public void setUserId(String userId) { this.userId = userId; }
     
+    public List<String> getUserIds() { return userIds; }
+    public void setUserIds(List<String> userIds) { this.userIds = userIds; }
+    
     public DeliveryStatus getStatus() { return status; }
     public void setStatus(DeliveryStatus status) { this.status = status; }
+    
+    public Long getUpToSeq() { return upToSeq; }
+    public void setUpToSeq(Long upToSeq) { this.upToSeq = upToSeq; }
 }
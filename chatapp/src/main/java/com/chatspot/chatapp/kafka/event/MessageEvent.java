@@ -2,11 +2,15 @@ package com.chatspot.chatapp.kafka.event;
 
 import com.chatspot.chatapp.entity.message.MessageType;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public class MessageEvent extends ChatEvent {
     private Long messageId;
     private Long chatId;
+    private Long seq;
+    // Partition key of the message's delivery rows
+    private LocalDateTime createdAt;
     private String senderId;
     private String content;
     private MessageType messageType;
@@ -24,6 +28,12 @@ public class MessageEvent extends ChatEvent {
     public Long getChatId() { return chatId; }
     public void setChatId(Long chatId) { this.chatId = chatId; }
     
+    public Long getSeq() { return seq; }
+    public void setSeq(Long seq) { this.seq = seq; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
     public String getSenderId() { return senderId; }
     public void setSenderId(String senderId) { this.senderId = senderId; }
     
@@ -0,0 +1,27 @@
+package com.chatspot.chatapp.kafka.event;
+
+import java.time.LocalDateTime;
+
+// A user's presence or status changed on the node that sends it; goes to every live node, since it belongs to no chat
+public class PresenceEvent extends ChatEvent {
+    private String userId;
+    private String status;
+    private LocalDateTime changedAt;
+    
+    public PresenceEvent() {
+        setEventType("PRESENCE");
+    }
+    
+    // Getters and setters
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+    
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    
+    public LocalDateTime getChangedAt() { return changedAt; }
+    public void setChangedAt(LocalDateTime changedAt) { this.changedAt = changedAt; }
+    
+    @Override
+    public Long getChatId() { return null; }
+}
@@ -4,6 +4,7 @@ import com.chatspot.chatapp.entity.message.ReactionType;
 
 public class ReactionEvent extends ChatEvent {
     private Long messageId;
+    private Long chatId;
     private String userId;
     private ReactionType reactionType;
     private boolean isRemoved;
@@ -16,6 +17,9 @@ public class ReactionEvent extends ChatEvent {
     public Long getMessageId() { return messageId; }
     public void setMessageId(Long messageId) { this.messageId = messageId; }
     
+    public Long getChatId() { return chatId; }
+    public void setChatId(Long chatId) { this.chatId = chatId; }
+    
     public String getUserId() { return userId; }
     public void setUserId(String userId) { this.userId = userId; }
     
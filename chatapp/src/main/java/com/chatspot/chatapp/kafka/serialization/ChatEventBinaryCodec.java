@@ -0,0 +1,379 @@
+package com.chatspot.chatapp.kafka.serialization;
+
+import com.chatspot.chatapp.entity.message.DeliveryStatus;
+import com.chatspot.chatapp.entity.message.MessageType;
+import com.chatspot.chatapp.entity.message.ReactionType;
+import com.chatspot.chatapp.kafka.event.ChatEvent;
+import com.chatspot.chatapp.kafka.event.DeliveryStatusEvent;
+import com.chatspot.chatapp.kafka.event.MessageEvent;
+import com.chatspot.chatapp.kafka.event.PresenceEvent;
+import com.chatspot.chatapp.kafka.event.ReactionEvent;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of the chat events.
+ * <p>
+ * Layout: magic byte, format version, event type tag, then the common fields (event id, timestamp) and the
+ * fields of the concrete event in declaration order. Integers are zig-zag varints, timestamps are
+ * epoch seconds plus nano-of-second (message_created_at is matched exactly in SQL, so the value must survive
+ * unchanged), enums are ordinal + 1, and every nullable value reserves 0 for null. Strings and lists are length-prefixed the same way.
+ * <p>
+ * Compatibility rules: new fields are only ever appended and are read only if bytes remain, and enum
+ * constants are only ever appended. Anything else needs a new version number.
+ */
+public final class ChatEventBinaryCodec {
+
+    public static final byte MAGIC = (byte) 0xCE;
+    public static final byte VERSION = 1;
+
+    private static final byte TYPE_MESSAGE = 1;
+    private static final byte TYPE_DELIVERY_STATUS = 2;
+    private static final byte TYPE_REACTION = 3;
+    private static final byte TYPE_PRESENCE = 4;
+
+    private static final byte EVENT_ID_NULL = 0;
+    private static final byte EVENT_ID_UUID = 1;
+    private static final byte EVENT_ID_STRING = 2;
+
+    private ChatEventBinaryCodec() {
+    }
+
+    public static byte[] encode(ChatEvent event) {
+        Writer out = new Writer();
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        if (event instanceof MessageEvent message) {
+            out.writeByte(TYPE_MESSAGE);
+            writeCommon(out, event);
+            out.writeNullableLong(message.getMessageId());
+            out.writeNullableLong(message.getChatId());
+            out.writeNullableLong(message.getSeq());
+            out.writeTimestamp(message.getCreatedAt());
+            out.writeString(message.getSenderId());
+            out.writeString(message.getContent());
+            out.writeEnum(message.getMessageType());
+            out.writeStringList(message.getRecipients());
+            out.writeNullableLong(message.getReplyToMessageId());
+        } else if (event instanceof DeliveryStatusEvent status) {
+            out.writeByte(TYPE_DELIVERY_STATUS);
+            writeCommon(out, event);
+            out.writeNullableLong(status.getMessageId());
+            out.writeNullableLong(status.getChatId());
+            out.writeString(status.getUserId());
+            out.writeStringList(status.getUserIds());
+            out.writeEnum(status.getStatus());
+            out.writeNullableLong(status.getUpToSeq());
+        } else if (event instanceof ReactionEvent reaction) {
+            out.writeByte(TYPE_REACTION);
+            writeCommon(out, event);
+            out.writeNullableLong(reaction.getMessageId());
+            out.writeString(reaction.getUserId());
+            out.writeEnum(reaction.getReactionType());
+            out.writeByte(reaction.isRemoved() ? (byte) 1 : (byte) 0);
+            out.writeNullableLong(reaction.getChatId());
+        } else if (event instanceof PresenceEvent presence) {
+            out.writeByte(TYPE_PRESENCE);
+            writeCommon(out, event);
+            out.writeString(presence.getUserId());
+            out.writeString(presence.getStatus());
+            out.writeTimestamp(presence.getChangedAt());
+        } else {
+            throw new IllegalArgumentException("Unsupported event type: " + event.getClass().getName());
+        }
+        return out.toByteArray();
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= 3 && data[0] == MAGIC;
+    }
+
+    public static ChatEvent decode(byte[] data) {
+        if (!isBinary(data)) {
+            throw new IllegalArgumentException("Not a binary chat event");
+        }
+        Reader in = new Reader(ByteBuffer.wrap(data));
+        in.readByte();
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported chat event format version: " + version);
+        }
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_MESSAGE -> {
+                MessageEvent message = new MessageEvent();
+                readCommon(in, message);
+                message.setMessageId(in.readNullableLong());
+                message.setChatId(in.readNullableLong());
+                message.setSeq(in.readNullableLong());
+                message.setCreatedAt(in.readTimestamp());
+                message.setSenderId(in.readString());
+                message.setContent(in.readString());
+                message.setMessageType(in.readEnum(MessageType.values()));
+                message.setRecipients(in.readStringList());
+                message.setReplyToMessageId(in.readNullableLong());
+                return message;
+            }
+            case TYPE_DELIVERY_STATUS -> {
+                DeliveryStatusEvent status = new DeliveryStatusEvent();
+                readCommon(in, status);
+                status.setMessageId(in.readNullableLong());
+                status.setChatId(in.readNullableLong());
+                status.setUserId(in.readString());
+                status.setUserIds(in.readStringList());
+                status.setStatus(in.readEnum(DeliveryStatus.values()));
+                status.setUpToSeq(in.readNullableLong());
+                return status;
+            }
+            case TYPE_REACTION -> {
+                ReactionEvent reaction = new ReactionEvent();
+                readCommon(in, reaction);
+                reaction.setMessageId(in.readNullableLong());
+                reaction.setUserId(in.readString());
+                reaction.setReactionType(in.readEnum(ReactionType.values()));
+                reaction.setRemoved(in.readByte() != 0);
+                if (in.hasRemaining()) {
+                    reaction.setChatId(in.readNullableLong());
+                }
+                return reaction;
+            }
+            case TYPE_PRESENCE -> {
+                PresenceEvent presence = new PresenceEvent();
+                readCommon(in, presence);
+                presence.setUserId(in.readString());
+                presence.setStatus(in.readString());
+                presence.setChangedAt(in.readTimestamp());
+                return presence;
+            }
+            default -> throw new IllegalArgumentException("Unknown chat event type tag: " + type);
+        }
+    }
+
+    // The event type string is implied by the type tag and set by the event constructors
+    private static void writeCommon(Writer out, ChatEvent event) {
+        String eventId = event.getEventId();
+        UUID uuid = parseUuid(eventId);
+        if (eventId == null) {
+            out.writeByte(EVENT_ID_NULL);
+        } else if (uuid != null) {
+            out.writeByte(EVENT_ID_UUID);
+            out.writeFixedLong(uuid.getMostSignificantBits());
+            out.writeFixedLong(uuid.getLeastSignificantBits());
+        } else {
+            out.writeByte(EVENT_ID_STRING);
+            out.writeString(eventId);
+        }
+        out.writeTimestamp(event.getTimestamp());
+    }
+
+    private static void readCommon(Reader in, ChatEvent event) {
+        byte idKind = in.readByte();
+        if (idKind == EVENT_ID_UUID) {
+            event.setEventId(new UUID(in.readFixedLong(), in.readFixedLong()).toString());
+        } else if (idKind == EVENT_ID_STRING) {
+            event.setEventId(in.readString());
+        } else {
+            event.setEventId(null);
+        }
+        event.setTimestamp(in.readTimestamp());
+    }
+
+    // Only the canonical lower-case form survives the round trip unchanged; anything else stays a string.
+    // Parsed by hand because UUID.fromString plus toString cost more than the rest of the encoding
+    private static UUID parseUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        long mostSignificant = 0;
+        long leastSignificant = 0;
+        int digits = 0;
+        for (int i = 0; i < 36; i++) {
+            char c = value.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return null;
+                }
+                continue;
+            }
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (c >= 'a' && c <= 'f') {
+                digit = c - 'a' + 10;
+            } else {
+                return null;
+            }
+            if (digits++ < 16) {
+                mostSignificant = (mostSignificant << 4) | digit;
+            } else {
+                leastSignificant = (leastSignificant << 4) | digit;
+            }
+        }
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+    // Unsynchronized growable buffer; ByteArrayOutputStream locks on every byte written
+    private static final class Writer {
+        private byte[] buffer = new byte[128];
+        private int size;
+
+        void writeByte(byte value) {
+            ensureCapacity(1);
+            buffer[size++] = value;
+        }
+
+        void writeFixedLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeUnsignedVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeNullableLong(Long value) {
+            if (value == null) {
+                writeUnsignedVarLong(0);
+                return;
+            }
+            if (value == Long.MIN_VALUE) {
+                throw new IllegalArgumentException("Long.MIN_VALUE is not representable");
+            }
+            writeUnsignedVarLong(((value << 1) ^ (value >> 63)) + 1);
+        }
+
+        // LocalDateTime has no zone; UTC only serves as a fixed reference for the arithmetic
+        void writeTimestamp(LocalDateTime value) {
+            if (value == null) {
+                writeNullableLong(null);
+                return;
+            }
+            writeNullableLong(value.toEpochSecond(ZoneOffset.UTC));
+            writeUnsignedVarLong(value.getNano());
+        }
+
+        void writeEnum(Enum<?> value) {
+            writeUnsignedVarLong(value == null ? 0 : value.ordinal() + 1);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeUnsignedVarLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeUnsignedVarLong(bytes.length + 1L);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void writeStringList(List<String> values) {
+            if (values == null) {
+                writeUnsignedVarLong(0);
+                return;
+            }
+            writeUnsignedVarLong(values.size() + 1L);
+            for (String value : values) {
+                writeString(value);
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final ByteBuffer buffer;
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        boolean hasRemaining() {
+            return buffer.hasRemaining();
+        }
+
+        byte readByte() {
+            return buffer.get();
+        }
+
+        long readFixedLong() {
+            return buffer.getLong();
+        }
+
+        long readUnsignedVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        Long readNullableLong() {
+            long raw = readUnsignedVarLong();
+            if (raw == 0) {
+                return null;
+            }
+            long zigzag = raw - 1;
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        LocalDateTime readTimestamp() {
+            Long epochSecond = readNullableLong();
+            return epochSecond == null ? null : LocalDateTime.ofEpochSecond(epochSecond, (int) readUnsignedVarLong(), ZoneOffset.UTC);
+        }
+
+        <E extends Enum<E>> E readEnum(E[] values) {
+            int ordinal = (int) readUnsignedVarLong();
+            return ordinal == 0 ? null : values[ordinal - 1];
+        }
+
+        String readString() {
+            int length = (int) readUnsignedVarLong();
+            if (length == 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length - 1];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        List<String> readStringList() {
+            int size = (int) readUnsignedVarLong();
+            if (size == 0) {
+                return null;
+            }
+            List<String> values = new ArrayList<>(size - 1);
+            for (int i = 0; i < size - 1; i++) {
+                values.add(readString());
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.chatspot.chatapp.kafka.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+/**
+ * Reads both formats, so consumers can be switched before producers and records written before the switch
+ * stay readable: payloads starting with the binary magic byte are decoded by ChatEventBinaryCodec, anything
+ * else (a JSON object starts with '{') goes to a JsonDeserializer configured from the consumer properties.
+ */
+public class ChatEventBinaryDeserializer implements Deserializer<Object> {
+
+    private final JsonDeserializer<Object> jsonDeserializer = new JsonDeserializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonDeserializer.configure(configs, isKey);
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (!ChatEventBinaryCodec.isBinary(data)) {
+            return jsonDeserializer.deserialize(topic, headers, data);
+        }
+        try {
+            return ChatEventBinaryCodec.decode(data);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Could not decode binary chat event from topic " + topic, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
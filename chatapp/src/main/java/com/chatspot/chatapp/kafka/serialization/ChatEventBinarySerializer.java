@@ -0,0 +1,23 @@
+package com.chatspot.chatapp.kafka.serialization;
+
+import com.chatspot.chatapp.kafka.event.ChatEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+public class ChatEventBinarySerializer implements Serializer<Object> {
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (!(data instanceof ChatEvent event)) {
+            throw new SerializationException("Cannot write " + data.getClass().getName() + " to topic " + topic + " in the binary chat event format");
+        }
+        try {
+            return ChatEventBinaryCodec.encode(event);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Could not encode event " + event.getEventId() + " for topic " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.chatspot.chatapp.repository;
+import com.chatspot.chatapp.common.dto.response.ChatUnreadCountDto;
+import com.chatspot.chatapp.common.dto.response.InboxEntryDto;
+import com.chatspot.chatapp.entity.chat.ChatParticipantId;
+import com.chatspot.chatapp.entity.chat.ChatParticipantInfo;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ChatParticipantRepository extends JpaRepository<ChatParticipantInfo, ChatParticipantId> {
+
+    // Moves the watermark forward only, clamped to the last message of the chat; returns null when nothing changed.
+    // Locks the chat row like a sender does, so a message being sent is either already counted in last_message_seq
+    // or increments the new unread counter after it is written; without the lock its increment could be lost to a
+    // reset to 0. The unread counter is reset to the messages left above the new watermark, which needs no count at
+    // all when the chat was read to the end. since bounds the count to the partitions the chat can have messages in.
+    @Query(value = "UPDATE chat_participants p " +
+                   "SET last_read_seq = LEAST(:upTo, c.last_message_seq), last_read_at = now(), " +
+                   "unread_count = CASE WHEN :upTo >= c.last_message_seq THEN 0 ELSE " +
+                   "(SELECT count(*) FROM messages m WHERE m.chat_id = p.chat_id AND m.created_at >= :since " +
+                   "AND m.seq > :upTo AND m.sender_id <> p.user_id) END " +
+                   "FROM (SELECT id, last_message_seq FROM chats WHERE id = :chatId FOR UPDATE) c " +
+                   "WHERE c.id = p.chat_id AND p.chat_id = :chatId AND p.user_id = :userId AND p.left_at IS NULL " +
+                   "AND p.last_read_seq < LEAST(:upTo, c.last_message_seq) " +
+                   "RETURNING p.last_read_seq",
+           nativeQuery = true)
+    Long advanceReadWatermark(@Param("chatId") Long chatId, @Param("userId") String userId, @Param("upTo") Long upTo,
+                              @Param("since") LocalDateTime since);
+
+    // One statement per sent message, however many recipients the chat has: moves the chat to the top of every
+    // member's inbox and counts the message as unread for everyone but the sender
+    @Modifying
+    @Query(value = "UPDATE chat_participants SET last_activity_at = :at, " +
+                   "unread_count = unread_count + CASE WHEN user_id = :senderId THEN 0 ELSE 1 END " +
+                   "WHERE chat_id = :chatId AND left_at IS NULL",
+           nativeQuery = true)
+    int recordMessageSent(@Param("chatId") Long chatId, @Param("senderId") String senderId, @Param("at") LocalDateTime at);
+
+    // Walks idx_chat_participants_user_activity in order and stops after one page; the chat and the last sender are
+    // primary key lookups, and the counterpart of an individual chat is one probe of the chat's memberships
+    @Query("SELECT new com.chatspot.chatapp.common.dto.response.InboxEntryDto(c.id, c.type, c.name, " +
+           "(SELECT MIN(o.id.userId) FROM ChatParticipantInfo o WHERE o.id.chatId = c.id AND o.id.userId <> :userId AND c.type = 'INDIVIDUAL'), " +
+           "(SELECT MIN(ou.firstName) FROM ChatParticipantInfo o JOIN o.user ou WHERE o.id.chatId = c.id AND o.id.userId <> :userId AND c.type = 'INDIVIDUAL'), " +
+           "c.lastMessageId, c.lastMessageSeq, c.lastMessagePreview, c.lastMessageType, c.lastMessageSenderId, s.firstName, " +
+           "p.lastActivityAt, p.unreadCount) " +
+           "FROM ChatParticipantInfo p JOIN p.chat c LEFT JOIN User s ON s.id = c.lastMessageSenderId " +
+           "WHERE p.id.userId = :userId AND p.leftAt IS NULL " +
+           "ORDER BY p.lastActivityAt DESC, p.id.chatId DESC")
+    Slice<InboxEntryDto> findInboxByUserId(@Param("userId") String userId, Pageable pageable);
+
+    @Query("SELECT new com.chatspot.chatapp.common.dto.response.ChatUnreadCountDto(p.id.chatId, p.unreadCount, p.lastReadSeq) " +
+           "FROM ChatParticipantInfo p WHERE p.id.userId = :userId AND p.leftAt IS NULL AND p.unreadCount > 0")
+    List<ChatUnreadCountDto> findUnreadCountsByUserId(@Param("userId") String userId);
+}
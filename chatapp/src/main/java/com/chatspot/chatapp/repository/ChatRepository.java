@@ -3,15 +3,18 @@ import com.chatspot.chatapp.entity.chat.Chat;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
 public interface ChatRepository extends JpaRepository<Chat, Long> {
-    @Query("SELECT c FROM Chat c JOIN c.participants p WHERE p.user.id = :userId AND p.leftAt IS NULL")
+    @Query("SELECT c FROM Chat c JOIN c.participants p WHERE p.user.id = :userId AND p.leftAt IS NULL " +
+           "ORDER BY p.lastActivityAt DESC, c.id DESC")
     Page<Chat> findChatsByUserId(@Param("userId") String userId, Pageable pageable);
     
     @Query("SELECT c FROM Chat c JOIN c.participants p WHERE c.id = :chatId AND p.user.id = :userId AND p.leftAt IS NULL")
@@ -21,4 +24,25 @@ public interface ChatRepository extends JpaRepository<Chat, Long> {
            "WHERE c.type = 'INDIVIDUAL' AND p1.user.id = :userId1 AND p2.user.id = :userId2 " +
            "AND p1.leftAt IS NULL AND p2.leftAt IS NULL")
     Optional<Chat> findIndividualChatBetweenUsers(@Param("userId1") String userId1, @Param("userId2") String userId2);
+
+    // Row lock on the chat serializes concurrent senders of the same chat only; a rollback releases the number
+    @Query(value = "UPDATE chats SET last_message_seq = last_message_seq + 1 WHERE id = :chatId RETURNING last_message_seq",
+           nativeQuery = true)
+    Long nextMessageSeq(@Param("chatId") Long chatId);
+
+    // Runs after nextMessageSeq in the same transaction, so the chat row is already locked and the latest seq wins.
+    // The same statement adds the message's seq to its month in chat_message_months.
+    @Modifying
+    @Query(value = "WITH c AS (UPDATE chats SET last_message_id = :messageId, last_message_preview = :preview, " +
+                   "last_message_sender_id = :senderId, last_message_type = :type, last_activity_at = :at " +
+                   "WHERE id = :chatId RETURNING id) " +
+                   "INSERT INTO chat_message_months (chat_id, month, first_seq, last_seq) " +
+                   "SELECT id, CAST(date_trunc('month', CAST(:at AS TIMESTAMP)) AS DATE), :seq, :seq FROM c " +
+                   "ON CONFLICT (chat_id, month) DO UPDATE SET " +
+                   "first_seq = LEAST(chat_message_months.first_seq, EXCLUDED.first_seq), " +
+                   "last_seq = GREATEST(chat_message_months.last_seq, EXCLUDED.last_seq)",
+           nativeQuery = true)
+    int recordLastMessage(@Param("chatId") Long chatId, @Param("messageId") Long messageId, @Param("seq") Long seq,
+                          @Param("preview") String preview, @Param("senderId") String senderId, @Param("type") String type,
+                          @Param("at") LocalDateTime at);
 }
\ No newline at end of file
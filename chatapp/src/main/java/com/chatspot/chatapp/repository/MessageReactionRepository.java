@@ -0,0 +1,33 @@
+package com.chatspot.chatapp.repository;
+import com.chatspot.chatapp.entity.message.MessageReaction;
+import com.chatspot.chatapp.entity.message.MessageUserId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface MessageReactionRepository extends JpaRepository<MessageReaction, MessageUserId> {
+
+    // Exactly one row written; the message's created date routes it straight to its partition.
+    // Returns 0 when the user already had this reaction, so no-op requests publish nothing.
+    @Modifying
+    @Query(value = "INSERT INTO message_reactions (message_id, message_created_at, user_id, reaction_type, created_at, updated_at) " +
+                   "VALUES (:messageId, :messageCreatedAt, :userId, :reactionType, now(), now()) " +
+                   "ON CONFLICT (message_id, user_id, message_created_at) DO UPDATE " +
+                   "SET reaction_type = EXCLUDED.reaction_type, updated_at = now() " +
+                   "WHERE message_reactions.reaction_type IS DISTINCT FROM EXCLUDED.reaction_type",
+           nativeQuery = true)
+    int upsertReaction(@Param("messageId") Long messageId, @Param("messageCreatedAt") LocalDateTime messageCreatedAt,
+                       @Param("userId") String userId, @Param("reactionType") String reactionType);
+
+    @Modifying
+    @Query(value = "DELETE FROM message_reactions " +
+                   "WHERE message_id = :messageId AND message_created_at = :messageCreatedAt AND user_id = :userId",
+           nativeQuery = true)
+    int deleteReaction(@Param("messageId") Long messageId, @Param("messageCreatedAt") LocalDateTime messageCreatedAt,
+                       @Param("userId") String userId);
+}
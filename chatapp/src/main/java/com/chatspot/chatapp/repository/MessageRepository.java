@@ -1,30 +1,47 @@
 package com.chatspot.chatapp.repository;
 import com.chatspot.chatapp.entity.message.Message;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
 
-    @EntityGraph(attributePaths = {"deliveryStatus", "reactions"})
-    Optional<Message> findByIdWithDeliveryStatus(Long id);
+    // History pages: seq is gap-free per chat, so a page is a known seq range. from/to are the months the range
+    // lies in (findMonthsBySeqRange), so PostgreSQL reads those month partitions only. No OFFSET and no COUNT.
+    @Query("SELECT m FROM Message m WHERE m.chat.id = :chatId AND m.createdDate >= :from AND m.createdDate < :to " +
+           "AND m.seq BETWEEN :fromSeq AND :toSeq ORDER BY m.seq DESC")
+    List<Message> findByChatIdAndSeqRange(@Param("chatId") Long chatId, @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to, @Param("fromSeq") Long fromSeq,
+                                          @Param("toSeq") Long toSeq);
+
+    // First day of every month the chat has messages with seq in [fromSeq, toSeq] in, oldest first
+    @Query(value = "SELECT CAST(month AS TIMESTAMP) FROM chat_message_months " +
+                   "WHERE chat_id = :chatId AND first_seq <= :toSeq AND last_seq >= :fromSeq ORDER BY month",
+           nativeQuery = true)
+    List<Timestamp> findMonthsBySeqRange(@Param("chatId") Long chatId, @Param("fromSeq") Long fromSeq,
+                                         @Param("toSeq") Long toSeq);
+
+    // Primary key lookup pruned to the partitions of [from, to]; fetches what findById would join in
+    @Query("SELECT m FROM Message m JOIN FETCH m.chat c LEFT JOIN FETCH c.createdBy " +
+           "LEFT JOIN FETCH c.participants p LEFT JOIN FETCH p.user JOIN FETCH m.sender " +
+           "WHERE m.id = :messageId AND m.createdDate BETWEEN :from AND :to")
+    Optional<Message> findByIdAndCreatedDateBetween(@Param("messageId") Long messageId, @Param("from") LocalDateTime from,
+                                                    @Param("to") LocalDateTime to);
+
+    // Single seek on (chat_id, created_At, id), pruned to the partitions from :from onwards
+    @Query("SELECT m.seq FROM Message m WHERE m.chat.id = :chatId AND m.createdDate >= :from " +
+           "ORDER BY m.createdDate ASC, m.id ASC")
+    List<Long> findSeqAtOrAfter(@Param("chatId") Long chatId, @Param("from") LocalDateTime from, Pageable pageable);
 
-    @Query("SELECT m FROM Message m WHERE m.chat.id = :chatId ORDER BY m.createdDate DESC")
-    Page<Message> findMessagesByChatId(@Param("chatId") Long chatId, Pageable pageable);
-    
     @Query("SELECT m FROM Message m JOIN m.chat c JOIN c.participants p " +
            "WHERE m.id = :messageId AND p.user.id = :userId AND p.leftAt IS NULL")
     Optional<Message> findByIdAndUserId(@Param("messageId") Long messageId, @Param("userId") String userId);
-    
-    @Query("SELECT COUNT(m) FROM Message m JOIN m.chat c JOIN c.participants p " +
-           "WHERE c.id = :chatId AND p.user.id = :userId AND p.leftAt IS NULL " +
-           "AND m.createdDate > p.lastReadAt")
-    Integer countUnreadMessages(@Param("chatId") Long chatId, @Param("userId") String userId);
 }
\ No newline at end of file
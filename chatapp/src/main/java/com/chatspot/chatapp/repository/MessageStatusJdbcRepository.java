@@ -0,0 +1,71 @@
+package com.chatspot.chatapp.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Set-based delivery state writes that do not fit a derived or single-row JPA query.
+ */
+@Repository
+public class MessageStatusJdbcRepository {
+
+    private static final String MARK_DELIVERED =
+            "UPDATE message_delivery_status SET status = 'DELIVERED', delivered_at = ? " +
+            "WHERE message_id = ? AND user_id = ANY (?) AND status = 'SENT'";
+
+    private static final String MARK_DELIVERED_IN_PARTITION = MARK_DELIVERED + " AND message_created_at = ?";
+
+    private static final String MARK_DELIVERED_TO_USER =
+            "UPDATE message_delivery_status d SET status = 'DELIVERED', delivered_at = ? " +
+            "FROM messages m " +
+            "WHERE d.user_id = ? AND d.status = 'SENT' AND d.message_created_at >= ? " +
+            "AND m.id = d.message_id AND m.created_at = d.message_created_at AND m.created_at >= ? " +
+            "RETURNING d.message_id, m.chat_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MessageStatusJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Moves the given recipients of one message from SENT to DELIVERED in a single statement and returns
+     * the ones that actually changed. With the message's created date the update touches one partition only.
+     */
+    public List<String> markDelivered(Long messageId, LocalDateTime messageCreatedAt, Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+        String sql = (messageCreatedAt != null ? MARK_DELIVERED_IN_PARTITION : MARK_DELIVERED) + " RETURNING user_id";
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            statement.setLong(2, messageId);
+            statement.setArray(3, connection.createArrayOf("varchar", userIds.toArray()));
+            if (messageCreatedAt != null) {
+                statement.setTimestamp(4, Timestamp.valueOf(messageCreatedAt));
+            }
+            return statement;
+        }, (resultSet, rowNum) -> resultSet.getString(1));
+    }
+
+    /**
+     * Moves every message sent to the user since the given time from SENT to DELIVERED in a single statement
+     * and returns the ones that changed. The time bound keeps the update to the recent month partitions.
+     */
+    public List<DeliveredMessage> markDeliveredTo(String userId, LocalDateTime since) {
+        Timestamp sinceTimestamp = Timestamp.valueOf(since);
+        return jdbcTemplate.query(MARK_DELIVERED_TO_USER,
+                (resultSet, rowNum) -> new DeliveredMessage(resultSet.getLong(1), resultSet.getLong(2)),
+                Timestamp.valueOf(LocalDateTime.now()), userId, sinceTimestamp, sinceTimestamp);
+    }
+
+    public record DeliveredMessage(Long messageId, Long chatId) {
+    }
+}
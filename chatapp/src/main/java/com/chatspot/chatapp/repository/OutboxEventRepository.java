@@ -0,0 +1,38 @@
+package com.chatspot.chatapp.repository;
+
+import com.chatspot.chatapp.entity.outbox.OutboxEvent;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Claims the batch for the lease in its own short transaction, so no row lock is held while the batch is
+    // sent. Rows claimed by another relay instance are skipped, so relays can run on every node. RETURNING
+    // does not keep the subquery's order; callers sort by id
+    @Transactional
+    @Query(value = "UPDATE outbox_events SET locked_until = now() + make_interval(secs => :leaseSeconds) " +
+                   "WHERE id IN (SELECT id FROM outbox_events WHERE locked_until IS NULL OR locked_until < now() " +
+                   "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+                   "RETURNING *",
+           nativeQuery = true)
+    List<OutboxEvent> claimNextBatch(@Param("limit") int limit, @Param("leaseSeconds") double leaseSeconds);
+
+    // Makes unsent rows claimable on the next poll instead of after the lease
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE outbox_events SET locked_until = NULL WHERE id IN :ids", nativeQuery = true)
+    void releaseClaim(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OutboxEvent o WHERE o.id IN :ids")
+    void deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
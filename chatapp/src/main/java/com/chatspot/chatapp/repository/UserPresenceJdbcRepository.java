@@ -0,0 +1,96 @@
+package com.chatspot.chatapp.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Batched last-seen writes for PresenceService (any number of users in one UPDATE) and the contact lookups
+ * behind presence subscriptions. A user's contacts are the users they share an active chat with.
+ */
+@Repository
+public class UserPresenceJdbcRepository {
+
+    // Never moves last_seen backwards, e.g. when an older flush is retried
+    private static final String UPDATE_LAST_SEEN =
+            "UPDATE users u SET last_seen = v.seen " +
+            "FROM unnest(?::varchar[], ?::timestamp[]) AS v(id, seen) " +
+            "WHERE u.id = v.id AND (u.last_seen IS NULL OR u.last_seen < v.seen)";
+
+    private static final String SELECT_CONTACTS =
+            "SELECT DISTINCT u.id, u.last_seen FROM chat_participants me " +
+            "JOIN chat_participants c ON c.chat_id = me.chat_id AND c.user_id <> me.user_id AND c.left_at IS NULL " +
+            "JOIN users u ON u.id = c.user_id " +
+            "WHERE me.user_id = ? AND me.left_at IS NULL";
+
+    private static final String SELECT_WATCHERS =
+            "SELECT DISTINCT w.user_id, p.user_id FROM chat_participants p " +
+            "JOIN chat_participants w ON w.chat_id = p.chat_id AND w.user_id <> p.user_id AND w.left_at IS NULL " +
+            "WHERE p.user_id = ANY(?) AND p.left_at IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserPresenceJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public int updateLastSeen(Map<String, LocalDateTime> lastSeenByUser) {
+        if (lastSeenByUser.isEmpty()) {
+            return 0;
+        }
+        String[] userIds = new String[lastSeenByUser.size()];
+        Timestamp[] lastSeen = new Timestamp[lastSeenByUser.size()];
+        int i = 0;
+        for (Map.Entry<String, LocalDateTime> entry : lastSeenByUser.entrySet()) {
+            userIds[i] = entry.getKey();
+            lastSeen[i] = Timestamp.valueOf(entry.getValue());
+            i++;
+        }
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(UPDATE_LAST_SEEN);
+            statement.setArray(1, connection.createArrayOf("varchar", userIds));
+            statement.setArray(2, connection.createArrayOf("timestamp", lastSeen));
+            return statement;
+        });
+    }
+
+    /**
+     * The contacts of the user with their last seen time, which is null for users never seen.
+     */
+    public Map<String, LocalDateTime> findContactsLastSeen(String userId) {
+        Map<String, LocalDateTime> contacts = new LinkedHashMap<>();
+        jdbcTemplate.query(SELECT_CONTACTS, (RowCallbackHandler) resultSet -> {
+            Timestamp lastSeen = resultSet.getTimestamp(2);
+            contacts.put(resultSet.getString(1), lastSeen != null ? lastSeen.toLocalDateTime() : null);
+        }, userId);
+        return contacts;
+    }
+
+    /**
+     * Inverse contact lookup for a batch of users: each user that has at least one of them as a contact,
+     * mapped to those of the given users it has.
+     */
+    public Map<String, Set<String>> findWatchers(Collection<String> userIds) {
+        Map<String, Set<String>> watchers = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return watchers;
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_WATCHERS);
+            statement.setArray(1, connection.createArrayOf("varchar", userIds.toArray()));
+            return statement;
+        }, (RowCallbackHandler) resultSet ->
+                watchers.computeIfAbsent(resultSet.getString(1), key -> new HashSet<>()).add(resultSet.getString(2)));
+        return watchers;
+    }
+}
@@ -12,6 +12,7 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, String> {
     Optional<User> findByEmail(String email);
+    boolean existsByEmail(String email);
     @Query("SELECT u FROM User u WHERE lower(concat(u.firstName,u.lastName)) like %:name%")
     List<User> findByName(String name);
     @Query("SELECT u FROM User u WHERE u.id IN :userIds")
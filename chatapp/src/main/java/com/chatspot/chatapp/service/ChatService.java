@@ -1,9 +1,12 @@
 package com.chatspot.chatapp.service;
 
+import com.chatspot.chatapp.common.dto.response.InboxEntryDto;
 import com.chatspot.chatapp.entity.chat.Chat;
 import com.chatspot.chatapp.entity.chat.ChatType;
 import com.chatspot.chatapp.entity.chat.ParticipantRole;
+import com.chatspot.chatapp.entity.message.Message;
 import com.chatspot.chatapp.entity.user.User;
+import com.chatspot.chatapp.repository.ChatParticipantRepository;
 import com.chatspot.chatapp.repository.ChatRepository;
 
 import com.chatspot.chatapp.repository.UserRepository;
@@ -12,6 +15,7 @@ import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -20,12 +24,17 @@ import java.util.Optional;
 @Service
 @Transactional
 public class ChatService {
+
+    private static final int PREVIEW_LENGTH = 100;
     
     @Autowired
     private ChatRepository chatRepository;
     
     @Autowired
     private UserRepository userRepository;
+
+    @Autowired
+    private ChatParticipantRepository chatParticipantRepository;
     
     public Page<Chat> getUserChats(String userId, Pageable pageable) {
         return chatRepository.findChatsByUserId(userId, pageable);
@@ -36,6 +45,23 @@ public class ChatService {
             .orElseThrow(() -> new SecurityException("Access denied to chat"));
     }
     
+    public Long nextMessageSeq(Long chatId) {
+        return chatRepository.nextMessageSeq(chatId);
+    }
+
+    public void recordLastMessage(Message message) {
+        String preview = message.getContent() != null ? message.getContent() : message.getFileName();
+        if (preview != null && preview.length() > PREVIEW_LENGTH) {
+            preview = preview.substring(0, PREVIEW_LENGTH);
+        }
+        chatRepository.recordLastMessage(message.getChat().getId(), message.getId(), message.getSeq(), preview,
+                message.getSender().getId(), message.getType().name(), message.getCreatedDate());
+    }
+
+    public Slice<InboxEntryDto> getInbox(String userId, Pageable pageable) {
+        return chatParticipantRepository.findInboxByUserId(userId, pageable);
+    }
+    
     public Chat createIndividualChat(String userId1, String userId2) {
         // Check if chat already exists
         Optional<Chat> existingChat = chatRepository.findIndividualChatBetweenUsers(userId1, userId2);
@@ -0,0 +1,167 @@
+package com.chatspot.chatapp.service;
+
+import com.chatspot.chatapp.common.dto.response.UserPresenceDto;
+import com.chatspot.chatapp.kafka.event.PresenceEvent;
+import com.chatspot.chatapp.repository.UserPresenceJdbcRepository;
+import com.chatspot.chatapp.websocket.NodeEventRouter;
+import com.chatspot.chatapp.websocket.NodeSessionRegistry;
+import com.chatspot.chatapp.websocket.WebSocketMessageBroadcaster;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Presence of a user's contacts over a single {@code /user/queue/presence} subscription.
+ * <p>
+ * Clients load the initial state with {@link #snapshot} and then receive diffs: presence changes are collected
+ * and flushed once per interval, and each connected user whose contacts changed gets one frame listing only
+ * those contacts. The watchers of all changed users are found with one query per flush, so the cost follows
+ * the number of changes, not the number of contacts.
+ * <p>
+ * Presence is cluster-wide. A node announces the changes it saw as presence events to every live node
+ * (itself included) through NodeEventRouter; each node keeps the statuses of all users from these events and
+ * pushes diffs to the watchers connected to it. A change seen on another node therefore reaches watchers at
+ * most one interval later than a local one. Online state is read from the shared node registry.
+ */
+@Service
+@Slf4j
+public class ContactPresenceService {
+
+    private final PresenceService presenceService;
+    private final NodeSessionRegistry nodeSessionRegistry;
+    private final NodeEventRouter nodeEventRouter;
+    private final UserPresenceJdbcRepository userPresenceJdbcRepository;
+    private final WebSocketMessageBroadcaster webSocketBroadcaster;
+    // Changes seen on this node, user id -> time of the change, until they are announced
+    private final Map<String, LocalDateTime> localChanges = new ConcurrentHashMap<>();
+    // Changes announced by any node, until they are pushed to this node's watchers
+    private final Map<String, LocalDateTime> changedUsers = new ConcurrentHashMap<>();
+    // Status chosen by the client, kept while the user is online on any node
+    private final Map<String, String> statuses = new ConcurrentHashMap<>();
+
+    public ContactPresenceService(PresenceService presenceService,
+                                  NodeSessionRegistry nodeSessionRegistry,
+                                  NodeEventRouter nodeEventRouter,
+                                  UserPresenceJdbcRepository userPresenceJdbcRepository,
+                                  WebSocketMessageBroadcaster webSocketBroadcaster) {
+        this.presenceService = presenceService;
+        this.nodeSessionRegistry = nodeSessionRegistry;
+        this.nodeEventRouter = nodeEventRouter;
+        this.userPresenceJdbcRepository = userPresenceJdbcRepository;
+        this.webSocketBroadcaster = webSocketBroadcaster;
+    }
+
+    public List<UserPresenceDto> snapshot(String userId) {
+        Map<String, LocalDateTime> contacts = userPresenceJdbcRepository.findContactsLastSeen(userId);
+        Set<String> online = nodeSessionRegistry.connectedUsers(contacts.keySet());
+        List<UserPresenceDto> snapshot = new ArrayList<>(contacts.size());
+        contacts.forEach((contactId, lastSeen) ->
+                snapshot.add(new UserPresenceDto(contactId, online.contains(contactId), statuses.get(contactId), lastSeen)));
+        return snapshot;
+    }
+
+    @EventListener
+    public void onPresenceChanged(PresenceChangedEvent event) {
+        localChanges.put(event.userId(), LocalDateTime.now());
+    }
+
+    public void onStatusChange(String userId, String status) {
+        if (status != null) {
+            statuses.put(userId, status);
+        } else {
+            statuses.remove(userId);
+        }
+        localChanges.put(userId, LocalDateTime.now());
+    }
+
+    // A change announced by any node, this one included
+    @EventListener
+    public void onPresenceEvent(PresenceEvent event) {
+        if (event.getStatus() != null) {
+            statuses.put(event.getUserId(), event.getStatus());
+        } else {
+            statuses.remove(event.getUserId());
+        }
+        changedUsers.merge(event.getUserId(), event.getChangedAt(),
+                (pending, announced) -> pending.isAfter(announced) ? pending : announced);
+    }
+
+    @Scheduled(fixedDelayString = "${application.presence.diff-interval-ms:1000}")
+    public void flushDiffs() {
+        announce();
+        pushDiffs();
+    }
+
+    private void announce() {
+        Map<String, LocalDateTime> batch = drain(localChanges);
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<PresenceEvent> events = new ArrayList<>(batch.size());
+        batch.forEach((userId, changedAt) -> {
+            PresenceEvent event = new PresenceEvent();
+            event.setUserId(userId);
+            event.setStatus(statuses.get(userId));
+            event.setChangedAt(changedAt);
+            events.add(event);
+        });
+        try {
+            nodeEventRouter.routeAll(events);
+        } catch (Exception e) {
+            log.warn("Could not announce presence of {} users: {}", batch.size(), e.getMessage());
+            batch.forEach(localChanges::putIfAbsent);
+        }
+    }
+
+    private void pushDiffs() {
+        Map<String, LocalDateTime> batch = drain(changedUsers);
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            // Read after the change, so a user who went offline on one node but is still connected elsewhere stays online
+            Set<String> online = nodeSessionRegistry.connectedUsers(batch.keySet());
+            batch.keySet().forEach(userId -> {
+                if (!online.contains(userId)) {
+                    statuses.remove(userId);
+                }
+            });
+            Map<String, Set<String>> watchers = userPresenceJdbcRepository.findWatchers(batch.keySet());
+            watchers.forEach((watcherId, contactIds) -> {
+                if (!presenceService.isOnline(watcherId)) {
+                    return;
+                }
+                List<UserPresenceDto> diff = new ArrayList<>(contactIds.size());
+                for (String contactId : contactIds) {
+                    boolean isOnline = online.contains(contactId);
+                    diff.add(new UserPresenceDto(contactId, isOnline, statuses.get(contactId),
+                            isOnline ? null : batch.get(contactId)));
+                }
+                webSocketBroadcaster.sendPresenceDiff(watcherId, diff);
+            });
+        } catch (Exception e) {
+            log.warn("Could not push presence of {} users: {}", batch.size(), e.getMessage());
+            batch.forEach(changedUsers::putIfAbsent);
+        }
+    }
+
+    private static Map<String, LocalDateTime> drain(Map<String, LocalDateTime> changes) {
+        Map<String, LocalDateTime> batch = new HashMap<>();
+        for (String userId : changes.keySet()) {
+            LocalDateTime changedAt = changes.remove(userId);
+            if (changedAt != null) {
+                batch.put(userId, changedAt);
+            }
+        }
+        return batch;
+    }
+}
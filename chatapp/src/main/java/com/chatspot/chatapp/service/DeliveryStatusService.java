@@ -0,0 +1,98 @@
+package com.chatspot.chatapp.service;
+
+import com.chatspot.chatapp.entity.message.DeliveryStatus;
+import com.chatspot.chatapp.kafka.KafkaProducerService;
+import com.chatspot.chatapp.kafka.event.DeliveryStatusEvent;
+import com.chatspot.chatapp.kafka.event.MessageEvent;
+import com.chatspot.chatapp.repository.MessageStatusJdbcRepository;
+import com.chatspot.chatapp.repository.MessageStatusJdbcRepository.DeliveredMessage;
+import com.chatspot.chatapp.websocket.NodeSessionRegistry;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+@Service
+@Slf4j
+public class DeliveryStatusService {
+
+    private final MessageStatusJdbcRepository messageStatusJdbcRepository;
+    private final KafkaProducerService kafkaProducerService;
+    private final NodeSessionRegistry nodeSessionRegistry;
+    private final PresenceService presenceService;
+
+    @Value("${application.delivery.catch-up-days:30}")
+    private long catchUpDays;
+
+    public DeliveryStatusService(MessageStatusJdbcRepository messageStatusJdbcRepository,
+                                 KafkaProducerService kafkaProducerService,
+                                 NodeSessionRegistry nodeSessionRegistry,
+                                 PresenceService presenceService) {
+        this.messageStatusJdbcRepository = messageStatusJdbcRepository;
+        this.kafkaProducerService = kafkaProducerService;
+        this.nodeSessionRegistry = nodeSessionRegistry;
+        this.presenceService = presenceService;
+    }
+
+    /**
+     * Marks the recipients of a new message that are connected to any node right now as DELIVERED with one
+     * UPDATE, and publishes a single receipt listing them. Recipients that are offline stay SENT until they
+     * connect (see {@link #onPresenceChanged}).
+     */
+    @Transactional
+    public void markDeliveredToConnectedRecipients(MessageEvent event) {
+        if (event.getRecipients() == null || event.getRecipients().isEmpty()) {
+            return;
+        }
+        Set<String> connected = nodeSessionRegistry.connectedUsers(event.getRecipients());
+
+        List<String> delivered = messageStatusJdbcRepository.markDelivered(event.getMessageId(), event.getCreatedAt(), connected);
+        if (delivered.isEmpty()) {
+            return;
+        }
+
+        // Written to the outbox in this transaction, so the receipt exists only if the update committed
+        DeliveryStatusEvent statusEvent = new DeliveryStatusEvent();
+        statusEvent.setMessageId(event.getMessageId());
+        statusEvent.setChatId(event.getChatId());
+        statusEvent.setUserIds(delivered);
+        statusEvent.setStatus(DeliveryStatus.DELIVERED);
+        kafkaProducerService.publishDeliveryStatusEvent(statusEvent);
+
+        log.debug("Message {} delivered to {}/{} recipients", event.getMessageId(), delivered.size(), event.getRecipients().size());
+    }
+
+    /**
+     * When a user's first session opens, marks what they were sent while offline, within the catch-up window,
+     * as DELIVERED with one UPDATE, and publishes one aggregated receipt per message. Runs after
+     * NodeSessionRegistry has registered the session, so a message consumed from then on finds the user
+     * connected and one committed before is caught up here.
+     */
+    @EventListener
+    @Order
+    @Transactional
+    public void onPresenceChanged(PresenceChangedEvent event) {
+        // The current state decides, since events of one user race
+        if (!event.online() || !presenceService.isOnline(event.userId())) {
+            return;
+        }
+        List<DeliveredMessage> delivered = messageStatusJdbcRepository.markDeliveredTo(event.userId(),
+                LocalDateTime.now().minusDays(catchUpDays));
+        for (DeliveredMessage message : delivered) {
+            DeliveryStatusEvent statusEvent = new DeliveryStatusEvent();
+            statusEvent.setMessageId(message.messageId());
+            statusEvent.setChatId(message.chatId());
+            statusEvent.setUserIds(List.of(event.userId()));
+            statusEvent.setStatus(DeliveryStatus.DELIVERED);
+            kafkaProducerService.publishDeliveryStatusEvent(statusEvent);
+        }
+
+        log.debug("User {} connected: {} messages delivered", event.userId(), delivered.size());
+    }
+}
@@ -3,6 +3,7 @@ package com.chatspot.chatapp.service;
 import com.chatspot.chatapp.common.dto.response.ChatResponseDto;
 import com.chatspot.chatapp.entity.chat.Chat;
 import com.chatspot.chatapp.entity.chat.ChatParticipantInfo;
+import com.chatspot.chatapp.entity.message.DeliveryStatus;
 import com.chatspot.chatapp.entity.message.Message;
 import com.chatspot.chatapp.entity.message.MessageDeliveryDto;
 import com.chatspot.chatapp.entity.message.MessageReactionDto;
@@ -10,12 +11,16 @@ import com.chatspot.chatapp.entity.message.MessageResponseDto;
 import com.chatspot.chatapp.entity.user.User;
 import com.chatspot.chatapp.entity.user.UserResponseDto;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -55,13 +60,20 @@ public class DtoMapperService {
     }
 
     public MessageResponseDto toMessageResponseDto(Message message, boolean includeMediaData) {
+        return toMessageResponseDto(message, includeMediaData, getReadWatermarks(message.getChat()));
+    }
+
+    // readWatermarks are those of the message's chat, computed once by callers that map a whole page
+    private MessageResponseDto toMessageResponseDto(Message message, boolean includeMediaData, Map<String, Long> readWatermarks) {
         // Convert sender to UserResponseDto (without profile picture to avoid nested loading)
         UserResponseDto senderDto = toUserResponseDto(message.getSender(), false);
 
-        // Map delivery info to safe DTOs
+        // Map delivery info to safe DTOs; READ is derived from each participant's read watermark
         List<MessageDeliveryDto> deliveryDtos = message.getDeliveryStatus().stream()
                 .map(info -> {
-                    return new MessageDeliveryDto(info.getUser().getId(),info.getUser().getFirstName(),info.getStatus());
+                    String userId = info.getUser().getId();
+                    boolean read = message.getSeq() != null && message.getSeq() <= readWatermarks.getOrDefault(userId, 0L);
+                    return new MessageDeliveryDto(userId, info.getUser().getFirstName(), read ? DeliveryStatus.READ : info.getStatus());
                 })
                 .collect(Collectors.toList());
 
@@ -75,6 +87,7 @@ public class DtoMapperService {
         MessageResponseDto dto = new MessageResponseDto(
             message.getId(),
             message.getChat().getId(),
+            message.getSeq(),
             senderDto,
             message.getType(),
             message.getContent(),
@@ -143,14 +156,33 @@ public class DtoMapperService {
                 .collect(Collectors.toList());
     }
 
+    private Map<String, Long> getReadWatermarks(Chat chat) {
+        Map<String, Long> watermarks = new HashMap<>();
+        for (ChatParticipantInfo participant : chat.getParticipants()) {
+            if (participant.getLastReadSeq() != null) {
+                watermarks.put(participant.getId().getUserId(), participant.getLastReadSeq());
+            }
+        }
+        return watermarks;
+    }
+
     public List<MessageResponseDto> toMessageResponseDtoList(List<Message> messages, boolean includeMediaData) {
+        // Pages hold one chat's messages, so this is usually a single entry
+        Map<Long, Map<String, Long>> readWatermarksByChat = new HashMap<>();
         List<MessageResponseDto> dtos = new ArrayList<>();
         for (Message message : messages) {
-            dtos.add(toMessageResponseDto(message, includeMediaData));
+            Map<String, Long> readWatermarks = readWatermarksByChat.computeIfAbsent(
+                    message.getChat().getId(), chatId -> getReadWatermarks(message.getChat()));
+            dtos.add(toMessageResponseDto(message, includeMediaData, readWatermarks));
         }
         return dtos;
     }
 
+    public Slice<MessageResponseDto> toMessageResponseDtoSlice(Slice<Message> messages, boolean includeMediaData) {
+        return new SliceImpl<>(toMessageResponseDtoList(messages.getContent(), includeMediaData),
+                messages.getPageable(), messages.hasNext());
+    }
+
 
 
     public Page<ChatResponseDto> toChatResponseDtoPage(Page<Chat> chatPage) {
@@ -0,0 +1,58 @@
+package com.chatspot.chatapp.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+/**
+ * Keeps the monthly partitions of messages, message_delivery_status and message_reactions
+ * created ahead of time and optionally detaches months past the retention period.
+ * The DDL itself lives in the create_message_partitions / detach_message_partitions_before
+ * database functions (see V5 migration).
+ */
+@Service
+@Slf4j
+public class MessagePartitionMaintenance {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${application.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    // 0 keeps every month attached
+    @Value("${application.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    public MessagePartitionMaintenance(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${application.partitions.cron:0 0 3 * * *}")
+    public void maintain() {
+        LocalDate today = LocalDate.now();
+        try {
+            Integer created = jdbcTemplate.queryForObject("SELECT create_message_partitions(?, ?)",
+                    Integer.class, today, today.plusMonths(monthsAhead));
+            log.info("Message partitions ensured through {}; {} created", today.plusMonths(monthsAhead), created);
+
+            if (retentionMonths > 0) {
+                Integer detached = jdbcTemplate.queryForObject("SELECT detach_message_partitions_before(?)",
+                        Integer.class, today.minusMonths(retentionMonths));
+                log.info("Detached {} message partitions older than {} months", detached, retentionMonths);
+            }
+        } catch (Exception e) {
+            log.error("Message partition maintenance failed: {}", e.getMessage(), e);
+        }
+    }
+}
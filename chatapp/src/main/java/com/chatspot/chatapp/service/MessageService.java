@@ -1,6 +1,9 @@
 package com.chatspot.chatapp.service;
 
+import com.chatspot.chatapp.common.dto.response.ChatUnreadCountDto;
+import com.chatspot.chatapp.common.dto.response.UnreadCountsResponseDto;
 import com.chatspot.chatapp.entity.chat.Chat;
+import com.chatspot.chatapp.entity.chat.ChatParticipantInfo;
 import com.chatspot.chatapp.entity.message.DeliveryStatus;
 import com.chatspot.chatapp.entity.message.Message;
 import com.chatspot.chatapp.entity.message.MessageType;
@@ -11,18 +14,28 @@ import com.chatspot.chatapp.kafka.KafkaProducerService;
 import com.chatspot.chatapp.kafka.event.DeliveryStatusEvent;
 import com.chatspot.chatapp.kafka.event.MessageEvent;
 import com.chatspot.chatapp.kafka.event.ReactionEvent;
+import com.chatspot.chatapp.repository.ChatParticipantRepository;
+import com.chatspot.chatapp.repository.MessageReactionRepository;
 import com.chatspot.chatapp.repository.MessageRepository;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -44,16 +57,105 @@ public class MessageService {
     @Autowired
     private FileService fileService;
 
+    @Autowired
+    private ChatParticipantRepository chatParticipantRepository;
+
+    @Autowired
+    private MessageReactionRepository messageReactionRepository;
+
     
     public Page<Message> getChatMessages(Long chatId, String userId, Pageable pageable) {
         // Verify user has access to chat
-        chatService.getChatById(chatId, userId);
-        return messageRepository.findMessagesByChatId(chatId, pageable);
+        Chat chat = chatService.getChatById(chatId, userId);
+        // Seq is gap-free: page n counts down from the latest seq, and the latest seq is the total
+        long total = chat.getLastMessageSeq();
+        long toSeq = total - pageable.getOffset();
+        return new PageImpl<>(findBySeqRange(chat, Math.max(1, toSeq - pageable.getPageSize() + 1), toSeq), pageable, total);
+    }
+    
+    /**
+     * Cursor-based history, newest first. At most one of before/after/around/at may be given;
+     * with none the latest messages are returned. hasNext() reports whether more messages exist
+     * in the direction of travel (newer for "after", older otherwise).
+     */
+    public Slice<Message> getChatHistory(Long chatId, String userId, Long before, Long after, Long around,
+                                         LocalDateTime at, int limit) {
+        int cursors = (before != null ? 1 : 0) + (after != null ? 1 : 0) + (around != null ? 1 : 0) + (at != null ? 1 : 0);
+        if (cursors > 1) {
+            throw new IllegalArgumentException("Only one of before, after, around or at may be specified");
+        }
+        // Verify user has access to chat
+        Chat chat = chatService.getChatById(chatId, userId);
+        long latest = chat.getLastMessageSeq();
+
+        if (at != null) {
+            List<Long> seqs = messageRepository.findSeqAtOrAfter(chatId, at, PageRequest.of(0, 1));
+            if (!seqs.isEmpty()) {
+                around = seqs.get(0);
+            }
+        }
+
+        // Seq is gap-free, so every page is a seq range known before reading a single message
+        Pageable pageable = PageRequest.of(0, limit);
+        if (after != null) {
+            long toSeq = Math.min(latest, after + limit);
+            return new SliceImpl<>(findBySeqRange(chat, Math.max(1, after + 1), toSeq), pageable, toSeq < latest);
+        }
+        long toSeq;
+        long fromSeq;
+        if (around != null) {
+            // The newer half, then the anchor and the older half
+            toSeq = Math.min(latest, around + limit / 2);
+            fromSeq = Math.max(1, Math.min(latest, around) - (limit - limit / 2) + 1);
+        } else {
+            toSeq = before != null ? Math.min(latest, before - 1) : latest;
+            fromSeq = Math.max(1, toSeq - limit + 1);
+        }
+        return new SliceImpl<>(findBySeqRange(chat, fromSeq, toSeq), pageable, fromSeq > 1);
+    }
+
+    /**
+     * Messages with seq in [fromSeq, toSeq], newest first. chat_message_months names the months the range lies
+     * in, so only those partitions are read. A range that comes back short (a month missing from the index, such
+     * as one written by a node predating it) is read again over the chat's whole lifetime.
+     */
+    private List<Message> findBySeqRange(Chat chat, long fromSeq, long toSeq) {
+        if (fromSeq > toSeq) {
+            return List.of();
+        }
+        List<Timestamp> months = messageRepository.findMonthsBySeqRange(chat.getId(), fromSeq, toSeq);
+        if (!months.isEmpty()) {
+            List<Message> messages = messageRepository.findByChatIdAndSeqRange(chat.getId(), months.get(0).toLocalDateTime(),
+                    months.get(months.size() - 1).toLocalDateTime().plusMonths(1), fromSeq, toSeq);
+            if (messages.size() == toSeq - fromSeq + 1) {
+                return messages;
+            }
+        }
+        return messageRepository.findByChatIdAndSeqRange(chat.getId(), lifetimeStart(chat),
+                LocalDateTime.now().plusDays(1), fromSeq, toSeq);
+    }
+
+    // No message predates its chat; the margin absorbs clock skew between nodes
+    private static LocalDateTime lifetimeStart(Chat chat) {
+        return chat.getCreatedDate().minusDays(1);
     }
     
     public Message sendMessage(Long chatId, String senderId, String content, MultipartFile file) throws IOException {
         Chat chat = chatService.getChatById(chatId, senderId);
-        User sender = userService.getUserById(senderId);
+
+        // Reuse the participant users already attached to the chat instead of one lookup per recipient
+        User sender = null;
+        List<User> recipients = new ArrayList<>(chat.getParticipants().size());
+        for (ChatParticipantInfo participant : chat.getParticipants()) {
+            if (participant.getUser().getId().equals(senderId)) {
+                sender = participant.getUser();
+            } else {
+                recipients.add(participant.getUser());
+            }
+        }
+        if (sender == null) {
+            sender = userService.getUserById(senderId);
+        }
 
         // First, save the message to get an ID
         Message message = new Message();
@@ -63,24 +165,29 @@ public class MessageService {
         // Now, create the message content (text and/or media)
         createMessageContent(message, content, file);
 
-        // Initialize delivery status for all participants
-        List<String> recipientIds = chat.getParticipants().stream()
-                .map(p -> p.getUser().getId())
-                .filter(id -> !id.equals(senderId))
+        // Initialize delivery status for all participants (inserted as one JDBC batch on flush)
+        message.initDeliveryStatus(recipients);
+
+        List<String> recipientIds = recipients.stream()
+                .map(User::getId)
                 .collect(Collectors.toList());
 
-        recipientIds.forEach(recipientId -> {
-            User participant = userService.getUserById(recipientId);
-            message.updateDeliveryStatus(participant, DeliveryStatus.SENT);
-        });
+        // Allocate the sequence number last: it holds the chat row lock until commit
+        message.setSeq(chatService.nextMessageSeq(chatId));
 
         // Save the final message with all properties
         final Message savedMessage = messageRepository.save(message);
 
+        // Inbox read model: latest message on the chat, activity time and unread counters on the memberships
+        chatService.recordLastMessage(savedMessage);
+        chatParticipantRepository.recordMessageSent(chatId, senderId, savedMessage.getCreatedDate());
+
         // Publish Kafka event for real-time delivery
         MessageEvent event = new MessageEvent();
         event.setMessageId(savedMessage.getId());
         event.setChatId(chatId);
+        event.setSeq(savedMessage.getSeq());
+        event.setCreatedAt(savedMessage.getCreatedDate());
         event.setSenderId(senderId);
         event.setContent(savedMessage.getContent());
         event.setMessageType(savedMessage.getType());
@@ -116,73 +223,111 @@ public class MessageService {
         }
     }
     
-    public Message addReaction(Long messageId, String userId, ReactionType reactionType) {
-        Message message = messageRepository.findById(messageId)
-                .orElseThrow(() -> new EntityNotFoundException("Message not found"));
+    public Message addReaction(Long messageId, LocalDateTime createdAt, String userId, ReactionType reactionType) {
+        Message message = findMessage(messageId, createdAt);
 
         // Authorize: check if user is in the chat
         chatService.getChatById(message.getChat().getId(), userId);
 
-        User user = userService.getUserById(userId);
-
-        message.addReaction(user, reactionType);
-        Message savedMessage =  messageRepository.save(message);
+        // Single-row upsert; the reactions collection is not loaded yet, so callers see the new state.
+        // This is the only write: the event below is a notification and consumers just broadcast it.
+        if (messageReactionRepository.upsertReaction(messageId, message.getCreatedDate(), userId, reactionType.name()) == 0) {
+            return message;
+        }
 
         // Publish Kafka reaction event
         ReactionEvent event = new ReactionEvent();
         event.setMessageId(messageId);
+        event.setChatId(message.getChat().getId());
         event.setUserId(userId);
         event.setReactionType(reactionType);
         event.setRemoved(false);
 
         kafkaProducerService.publishReactionEvent(event);
 
-        return savedMessage;
+        return message;
     }
     
-    public Message removeReaction(Long messageId, String userId) {
-        Message message = messageRepository.findById(messageId)
-                .orElseThrow(() -> new EntityNotFoundException("Message not found"));
+    public Message removeReaction(Long messageId, LocalDateTime createdAt, String userId) {
+        Message message = findMessage(messageId, createdAt);
 
         // Authorize: check if user is in the chat
         chatService.getChatById(message.getChat().getId(), userId);
 
-        User user = userService.getUserById(userId);
-
-        message.removeReaction(user);
-
-        Message savedMessage = messageRepository.save(message);
+        if (messageReactionRepository.deleteReaction(messageId, message.getCreatedDate(), userId) == 0) {
+            return message;
+        }
 
         // Publish Kafka reaction removal event
         ReactionEvent event = new ReactionEvent();
         event.setMessageId(messageId);
+        event.setChatId(message.getChat().getId());
         event.setUserId(userId);
         event.setRemoved(true);
 
         kafkaProducerService.publishReactionEvent(event);
 
-        return savedMessage;
+        return message;
     }
     
-    public void markAsRead(Long messageId, String userId) {
-        Message message = messageRepository.findById(messageId)
-                .orElseThrow(() -> new EntityNotFoundException("Message not found"));
+    public void markAsRead(Long messageId, LocalDateTime createdAt, String userId) {
+        Message message = findMessage(messageId, createdAt);
 
-        // Authorize: check if user is in the chat
-        chatService.getChatById(message.getChat().getId(), userId);
+        // Reading a message reads everything before it as well
+        markChatAsRead(message.getChat().getId(), userId, message.getSeq());
+    }
 
-        User user = userService.getUserById(userId);
+    /**
+     * With the createdAt the client received the message with, the lookup reads the one partition holding it.
+     * Without it, the primary key is probed in every month partition.
+     */
+    private Message findMessage(Long messageId, LocalDateTime createdAt) {
+        // The second of margin covers the rounding of created_at to microseconds
+        Optional<Message> message = createdAt != null
+                ? messageRepository.findByIdAndCreatedDateBetween(messageId, createdAt.minusSeconds(1), createdAt.plusSeconds(1))
+                : messageRepository.findById(messageId);
+        return message.orElseThrow(() -> new EntityNotFoundException("Message not found"));
+    }
 
-        message.updateDeliveryStatus(user, DeliveryStatus.READ);
-        messageRepository.save(message);
+    /**
+     * Advances the user's read watermark in the chat to upTo (or to the latest message when null) with a
+     * single UPDATE. The watermark never moves backwards, and a receipt is published only when it moved.
+     */
+    public void markChatAsRead(Long chatId, String userId, Long upTo) {
+        // Authorize: check if user is in the chat
+        Chat chat = chatService.getChatById(chatId, userId);
+
+        // Unread messages left above the watermark are counted in the months that hold them only
+        long readTo = upTo != null ? upTo : Long.MAX_VALUE;
+        LocalDateTime since = lifetimeStart(chat);
+        if (readTo < chat.getLastMessageSeq()) {
+            List<Timestamp> months = messageRepository.findMonthsBySeqRange(chatId, readTo + 1, Long.MAX_VALUE);
+            if (!months.isEmpty()) {
+                since = months.get(0).toLocalDateTime();
+            }
+        }
+        Long readUpTo = chatParticipantRepository.advanceReadWatermark(chatId, userId, readTo, since);
+        if (readUpTo == null) {
+            return;
+        }
 
         // Publish Kafka delivery status event
         DeliveryStatusEvent event = new DeliveryStatusEvent();
-        event.setMessageId(messageId);
+        event.setChatId(chatId);
         event.setUserId(userId);
         event.setStatus(DeliveryStatus.READ);
+        event.setUpToSeq(readUpTo);
 
         kafkaProducerService.publishDeliveryStatusEvent(event);
     }
 
+    public UnreadCountsResponseDto getUnreadCounts(String userId) {
+        List<ChatUnreadCountDto> chats = chatParticipantRepository.findUnreadCountsByUserId(userId);
+        long total = 0;
+        for (ChatUnreadCountDto chat : chats) {
+            total += chat.getUnreadCount();
+        }
+        return new UnreadCountsResponseDto(chats, total);
+    }
+
 }
\ No newline at end of file
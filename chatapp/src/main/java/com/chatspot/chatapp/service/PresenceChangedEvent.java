@@ -0,0 +1,8 @@
+package com.chatspot.chatapp.service;
+
+/**
+ * Published by PresenceService when a user's first session on this node opens or their last one closes.
+ * Listeners should read the current state from PresenceService, since events of one user can race.
+ */
+public record PresenceChangedEvent(String userId, boolean online) {
+}
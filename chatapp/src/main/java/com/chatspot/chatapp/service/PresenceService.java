@@ -0,0 +1,133 @@
+package com.chatspot.chatapp.service;
+
+import com.chatspot.chatapp.repository.UserPresenceJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Who is connected to this node, from WebSocket session events, and when each user was last active.
+ * <p>
+ * Users map to their open sessions (one per device). A user is online while they have at least one,
+ * and {@link #isOnline} is a single lock-free map read, cheap enough for any send path. Connects,
+ * disconnects and inbound frames (STOMP heartbeats included) only record a timestamp in memory; the
+ * timestamps are written to users.last_seen by a periodic flush, one UPDATE for all users.
+ */
+@Service
+@Slf4j
+public class PresenceService {
+
+    private final UserPresenceJdbcRepository userPresenceJdbcRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    // user id -> open session ids; a user is present only while the set is non-empty
+    private final Map<String, Set<String>> sessionsByUser = new ConcurrentHashMap<>();
+    private final Map<String, String> userBySession = new ConcurrentHashMap<>();
+    // Last activity not yet written to the database
+    private final Map<String, LocalDateTime> pendingLastSeen = new ConcurrentHashMap<>();
+
+    public PresenceService(UserPresenceJdbcRepository userPresenceJdbcRepository,
+                           ApplicationEventPublisher eventPublisher) {
+        this.userPresenceJdbcRepository = userPresenceJdbcRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public boolean isOnline(String userId) {
+        return sessionsByUser.containsKey(userId);
+    }
+
+    public Set<String> onlineUsers() {
+        return Set.copyOf(sessionsByUser.keySet());
+    }
+
+    public int sessionCount(String userId) {
+        Set<String> sessions = sessionsByUser.get(userId);
+        return sessions != null ? sessions.size() : 0;
+    }
+
+    @EventListener
+    public void onSessionConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (user == null || sessionId == null) {
+            return;
+        }
+        String userId = user.getName();
+        userBySession.put(sessionId, userId);
+        boolean[] cameOnline = new boolean[1];
+        sessionsByUser.compute(userId, (key, sessions) -> {
+            Set<String> result = sessions != null ? sessions : ConcurrentHashMap.newKeySet();
+            cameOnline[0] = result.isEmpty();
+            result.add(sessionId);
+            return result;
+        });
+        touch(userId);
+        if (cameOnline[0]) {
+            eventPublisher.publishEvent(new PresenceChangedEvent(userId, true));
+        }
+    }
+
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        String userId = userBySession.remove(event.getSessionId());
+        if (userId == null) {
+            return;
+        }
+        boolean[] wentOffline = new boolean[1];
+        sessionsByUser.computeIfPresent(userId, (key, sessions) -> {
+            sessions.remove(event.getSessionId());
+            wentOffline[0] = sessions.isEmpty();
+            return sessions.isEmpty() ? null : sessions;
+        });
+        touch(userId);
+        if (wentOffline[0]) {
+            eventPublisher.publishEvent(new PresenceChangedEvent(userId, false));
+        }
+    }
+
+    // Called for every inbound frame of the session, heartbeats included
+    public void onSessionActivity(String sessionId) {
+        String userId = sessionId != null ? userBySession.get(sessionId) : null;
+        if (userId != null) {
+            touch(userId);
+        }
+    }
+
+    private void touch(String userId) {
+        pendingLastSeen.put(userId, LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${application.presence.flush-interval-ms:10000}")
+    @PreDestroy
+    public void flushLastSeen() {
+        if (pendingLastSeen.isEmpty()) {
+            return;
+        }
+        Map<String, LocalDateTime> batch = new HashMap<>();
+        pendingLastSeen.forEach((userId, lastSeen) -> {
+            // Only taken if unchanged; a newer timestamp stays pending for the next flush
+            if (pendingLastSeen.remove(userId, lastSeen)) {
+                batch.put(userId, lastSeen);
+            }
+        });
+        try {
+            userPresenceJdbcRepository.updateLastSeen(batch);
+        } catch (Exception e) {
+            log.warn("Could not flush last seen of {} users: {}", batch.size(), e.getMessage());
+            batch.forEach((userId, lastSeen) -> pendingLastSeen.merge(userId, lastSeen,
+                    (pending, failed) -> pending.isAfter(failed) ? pending : failed));
+        }
+    }
+}
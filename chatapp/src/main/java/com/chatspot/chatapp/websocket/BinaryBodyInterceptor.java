@@ -0,0 +1,76 @@
+package com.chatspot.chatapp.websocket;
+
+import com.chatspot.chatapp.config.NativeEndpointHandshakeInterceptor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Swaps the JSON body of message frames for the ChatEventBinaryCodec encoding, for the sessions that asked for it.
+ * <p>
+ * A client of the raw WebSocket endpoint opts in with the CONNECT header {@code body-format:binary}. The
+ * broadcaster attaches the binary encoding to new-message frames as a server-side header while any such session
+ * is connected, so JSON-only deployments never encode twice. Frames with an application/octet-stream body go out
+ * as binary WebSocket frames. Other frames, and every frame to SockJS sessions, stay JSON.
+ */
+@Component
+@Slf4j
+public class BinaryBodyInterceptor implements ChannelInterceptor {
+
+    public static final String BODY_FORMAT_HEADER = "body-format";
+    public static final String BODY_FORMAT_BINARY = "binary";
+    public static final String BINARY_BODY_HEADER = "chatappBinaryBody";
+
+    private final Set<String> binarySessions = ConcurrentHashMap.newKeySet();
+
+    public boolean hasBinarySessions() {
+        return !binarySessions.isEmpty();
+    }
+
+    @EventListener
+    public void onSessionConnect(SessionConnectEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        if (accessor.getSessionId() == null || !BODY_FORMAT_BINARY.equals(accessor.getFirstNativeHeader(BODY_FORMAT_HEADER))) {
+            return;
+        }
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes != null && Boolean.TRUE.equals(attributes.get(NativeEndpointHandshakeInterceptor.NATIVE_WEBSOCKET_ATTRIBUTE))) {
+            binarySessions.add(accessor.getSessionId());
+        } else {
+            log.debug("Ignoring binary body format for SockJS session {}", accessor.getSessionId());
+        }
+    }
+
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        binarySessions.remove(event.getSessionId());
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!(message.getHeaders().get(BINARY_BODY_HEADER) instanceof byte[] binaryBody)) {
+            return message;
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null || !binarySessions.contains(sessionId)) {
+            return message;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.removeHeader(BINARY_BODY_HEADER);
+        return MessageBuilder.createMessage(binaryBody, accessor.getMessageHeaders());
+    }
+}
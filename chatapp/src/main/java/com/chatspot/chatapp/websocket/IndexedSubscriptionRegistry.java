@@ -0,0 +1,139 @@
+package com.chatspot.chatapp.websocket;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.broker.AbstractSubscriptionRegistry;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Subscription registry for the simple broker that looks destinations up in a hash index.
+ * <p>
+ * Spring's DefaultSubscriptionRegistry matches a destination against every subscription and caches only the
+ * last 1024 destinations, so with one topic per chat nearly every publish is a full scan. Here a publish to
+ * {@code /topic/chat/42} is one map lookup, and (un)subscribing touches only its own destination. Subscribing
+ * to a pattern still works; patterns are kept apart and matched on every publish, so they should stay rare.
+ * <p>
+ * Each destination keeps a read-only view of its subscribers that publishes return as is; a change drops the
+ * view and the next publish rebuilds it, so bursts of (un)subscribes cost no copies. Index entries are only
+ * changed inside {@code compute} of their destination, so publishes to different destinations never contend.
+ * SUBSCRIBE "selector" headers are not supported.
+ */
+public class IndexedSubscriptionRegistry extends AbstractSubscriptionRegistry {
+
+    private static final MultiValueMap<String, String> NO_SUBSCRIBERS =
+            CollectionUtils.unmodifiableMultiValueMap(new LinkedMultiValueMap<>());
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, Subscribers> destinations = new ConcurrentHashMap<>();
+    private final Map<String, Subscribers> patterns = new ConcurrentHashMap<>();
+    // session id -> subscription id -> destination, so unsubscribing needs no scan
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    protected void addSubscriptionInternal(String sessionId, String subscriptionId, String destination, Message<?> message) {
+        sessions.computeIfAbsent(sessionId, key -> new ConcurrentHashMap<>()).put(subscriptionId, destination);
+        indexFor(destination).compute(destination, (key, subscribers) -> {
+            Subscribers result = subscribers != null ? subscribers : new Subscribers();
+            result.add(sessionId, subscriptionId);
+            return result;
+        });
+    }
+
+    @Override
+    protected void removeSubscriptionInternal(String sessionId, String subscriptionId, Message<?> message) {
+        Map<String, String> subscriptions = sessions.get(sessionId);
+        if (subscriptions == null) {
+            return;
+        }
+        String destination = subscriptions.remove(subscriptionId);
+        if (destination != null) {
+            unindex(sessionId, subscriptionId, destination);
+        }
+    }
+
+    @Override
+    public void unregisterAllSubscriptions(String sessionId) {
+        Map<String, String> subscriptions = sessions.remove(sessionId);
+        if (subscriptions != null) {
+            subscriptions.forEach((subscriptionId, destination) -> unindex(sessionId, subscriptionId, destination));
+        }
+    }
+
+    @Override
+    protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
+        Subscribers exact = destinations.get(destination);
+        MultiValueMap<String, String> view = exact != null ? exact.view() : NO_SUBSCRIBERS;
+        if (patterns.isEmpty()) {
+            return view;
+        }
+        MultiValueMap<String, String> result = new LinkedMultiValueMap<>();
+        view.forEach(result::addAll);
+        patterns.forEach((pattern, subscribers) -> {
+            if (pathMatcher.match(pattern, destination)) {
+                subscribers.view().forEach(result::addAll);
+            }
+        });
+        return result;
+    }
+
+    public int getDestinationCount() {
+        return destinations.size() + patterns.size();
+    }
+
+    private Map<String, Subscribers> indexFor(String destination) {
+        return pathMatcher.isPattern(destination) ? patterns : destinations;
+    }
+
+    private void unindex(String sessionId, String subscriptionId, String destination) {
+        indexFor(destination).computeIfPresent(destination, (key, subscribers) ->
+                subscribers.remove(sessionId, subscriptionId) ? null : subscribers);
+    }
+
+    // Changes and rebuilds of the view hold the monitor; publishes read a built view without it
+    private static final class Subscribers {
+        // session id -> subscription ids
+        private final Map<String, Set<String>> subscriptionIds = new HashMap<>();
+        private volatile MultiValueMap<String, String> view;
+
+        synchronized void add(String sessionId, String subscriptionId) {
+            subscriptionIds.computeIfAbsent(sessionId, id -> new HashSet<>(2)).add(subscriptionId);
+            view = null;
+        }
+
+        // Whether no subscription is left
+        synchronized boolean remove(String sessionId, String subscriptionId) {
+            Set<String> ids = subscriptionIds.get(sessionId);
+            if (ids != null && ids.remove(subscriptionId)) {
+                if (ids.isEmpty()) {
+                    subscriptionIds.remove(sessionId);
+                }
+                view = null;
+            }
+            return subscriptionIds.isEmpty();
+        }
+
+        MultiValueMap<String, String> view() {
+            MultiValueMap<String, String> current = view;
+            return current != null ? current : rebuildView();
+        }
+
+        private synchronized MultiValueMap<String, String> rebuildView() {
+            if (view == null) {
+                LinkedMultiValueMap<String, String> built = new LinkedMultiValueMap<>(subscriptionIds.size());
+                subscriptionIds.forEach((sessionId, ids) -> built.put(sessionId, List.copyOf(ids)));
+                view = CollectionUtils.unmodifiableMultiValueMap(built);
+            }
+            return view;
+        }
+    }
+}
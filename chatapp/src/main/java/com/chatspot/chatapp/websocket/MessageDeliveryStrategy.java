@@ -0,0 +1,11 @@
+package com.chatspot.chatapp.websocket;
+
+/**
+ * Which destination carries new messages, so a client gets each message once, whatever it subscribes to.
+ */
+public enum MessageDeliveryStrategy {
+    // /topic/chat/{chatId}: clients subscribe to each chat they display
+    CHAT_TOPIC,
+    // /user/queue/messages: one subscription per client receives the messages of all its chats
+    USER_QUEUE
+}
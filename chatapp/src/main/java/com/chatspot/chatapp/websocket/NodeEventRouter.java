@@ -0,0 +1,124 @@
+package com.chatspot.chatapp.websocket;
+
+import com.chatspot.chatapp.kafka.event.ChatEvent;
+import com.chatspot.chatapp.kafka.event.DeliveryStatusEvent;
+import com.chatspot.chatapp.kafka.event.MessageEvent;
+import com.chatspot.chatapp.kafka.event.PresenceEvent;
+import com.chatspot.chatapp.eventbus.EventBus;
+import com.chatspot.chatapp.kafka.event.ReactionEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pushes events to the WebSocket clients of every node, not just the node that consumed them.
+ * <p>
+ * The shared consumer group hands each event to one node. That node looks up which live nodes hold a session
+ * of a participant of the event's chat and forwards the event to each of their node topics; events for
+ * itself are broadcast in place without the extra hop. Each node consumes its own topic with its own group
+ * and broadcasts to its local broker. Presence events belong to no chat and go to every live node, where they
+ * are handed to the node's listeners as application events. Forwarding is best effort: a push lost to a crashing node is
+ * recovered by clients reloading history when they reconnect.
+ * <p>
+ * With the in-memory event bus there is only one node, so every event is broadcast in place.
+ */
+@Component
+@Slf4j
+public class NodeEventRouter {
+
+    private final NodeSessionRegistry nodeSessionRegistry;
+    private final WebSocketMessageBroadcaster webSocketBroadcaster;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean singleNode;
+
+    public NodeEventRouter(NodeSessionRegistry nodeSessionRegistry,
+                           WebSocketMessageBroadcaster webSocketBroadcaster,
+                           KafkaTemplate<String, Object> kafkaTemplate,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${" + EventBus.MODE_PROPERTY + ":" + EventBus.MODE_KAFKA + "}") String eventBusMode) {
+        this.nodeSessionRegistry = nodeSessionRegistry;
+        this.webSocketBroadcaster = webSocketBroadcaster;
+        this.kafkaTemplate = kafkaTemplate;
+        this.eventPublisher = eventPublisher;
+        this.singleNode = !EventBus.MODE_KAFKA.equals(eventBusMode);
+    }
+
+    public void route(ChatEvent event) {
+        routeAll(List.of(event));
+    }
+
+    // One registry query for all chats of the batch
+    public void routeAll(Collection<? extends ChatEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (singleNode) {
+            events.forEach(this::broadcastLocally);
+            return;
+        }
+        Set<Long> chatIds = new HashSet<>();
+        boolean unscoped = false;
+        for (ChatEvent event : events) {
+            Long chatId = event.getChatId();
+            if (chatId != null) {
+                chatIds.add(chatId);
+            } else {
+                unscoped = true;
+            }
+        }
+        Map<Long, Set<String>> nodesByChat = nodeSessionRegistry.nodesByChat(chatIds);
+        // Presence events, and events published before they carried a chat id, go everywhere
+        List<String> allNodes = unscoped ? nodeSessionRegistry.liveNodes() : List.of();
+
+        List<ChatEvent> local = new ArrayList<>();
+        for (ChatEvent event : events) {
+            Long chatId = event.getChatId();
+            Collection<String> nodes = chatId != null ? nodesByChat.getOrDefault(chatId, Set.of()) : allNodes;
+            for (String nodeId : nodes) {
+                if (nodeId.equals(nodeSessionRegistry.getNodeId())) {
+                    local.add(event);
+                } else {
+                    forward(nodeId, chatId, event);
+                }
+            }
+        }
+        local.forEach(this::broadcastLocally);
+    }
+
+    private void forward(String nodeId, Long chatId, ChatEvent event) {
+        String topic = NodeSessionRegistry.topicFor(nodeId);
+        // Node topics have one partition, so events keep the order they had on the shared topic
+        kafkaTemplate.send(topic, chatId != null ? chatId.toString() : null, event)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.warn("Could not forward event {} to node {}: {}", event.getEventId(), nodeId, ex.getMessage());
+                    }
+                });
+    }
+
+    public void broadcastLocally(ChatEvent event) {
+        if (event instanceof MessageEvent message) {
+            webSocketBroadcaster.broadcastNewMessage(message);
+        } else if (event instanceof ReactionEvent reaction) {
+            webSocketBroadcaster.broadcastReaction(reaction);
+        } else if (event instanceof DeliveryStatusEvent status) {
+            if (status.getUpToSeq() != null) {
+                webSocketBroadcaster.broadcastReadReceipt(status);
+            } else {
+                webSocketBroadcaster.broadcastDeliveryStatus(status);
+            }
+        } else if (event instanceof PresenceEvent presence) {
+            eventPublisher.publishEvent(presence);
+        }
+    }
+}
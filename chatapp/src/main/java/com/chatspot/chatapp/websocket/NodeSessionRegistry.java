@@ -0,0 +1,325 @@
+package com.chatspot.chatapp.websocket;
+
+import com.chatspot.chatapp.eventbus.EventBus;
+import com.chatspot.chatapp.service.PresenceChangedEvent;
+import com.chatspot.chatapp.service.PresenceService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared registry of which node holds WebSocket sessions of which user (ws_nodes / ws_user_nodes).
+ * <p>
+ * Every node has a unique id for its lifetime and its own Kafka topic, {@code chatapp-node-<id>}. A row for
+ * a user is written when PresenceService sees their first session on this node and removed when the last one
+ * closes; a periodic reconcile repairs any drift. Nodes heartbeat into ws_nodes on a thread of their own, so a
+ * busy {@code @Scheduled} job never holds them back. Routing ignores nodes whose heartbeat is older than the TTL;
+ * the rows and topics of nodes silent for longer than the topic retention are swept. A node that recovers after
+ * being swept registers again and recreates its topic.
+ */
+@Component
+@Slf4j
+public class NodeSessionRegistry {
+
+    public static final String NODE_TOPIC_PREFIX = "chatapp-node-";
+
+    // Heartbeats are written with the database clock, so liveness is judged by it too, never by this JVM's
+    private static final String LIVE_SINCE = "now() - make_interval(secs => ?)";
+
+    private static final String HEARTBEAT =
+            "INSERT INTO ws_nodes (node_id, started_at, heartbeat_at) VALUES (?, now(), now()) " +
+            "ON CONFLICT (node_id) DO UPDATE SET heartbeat_at = now() " +
+            "RETURNING (xmax = 0)";
+
+    private static final String INSERT_USER =
+            "INSERT INTO ws_user_nodes (user_id, node_id, connected_at) VALUES (?, ?, now()) " +
+            "ON CONFLICT (user_id, node_id) DO NOTHING";
+
+    private static final String DELETE_USER = "DELETE FROM ws_user_nodes WHERE user_id = ? AND node_id = ?";
+
+    private static final String SELECT_NODE_USERS = "SELECT user_id FROM ws_user_nodes WHERE node_id = ?";
+
+    private static final String DELETE_NODE = "DELETE FROM ws_nodes WHERE node_id = ?";
+
+    private static final String SWEEP_DEAD_NODES = "DELETE FROM ws_nodes WHERE heartbeat_at < " + LIVE_SINCE + " RETURNING node_id";
+
+    private static final String SELECT_CONNECTED_USERS =
+            "SELECT DISTINCT s.user_id FROM ws_user_nodes s JOIN ws_nodes n ON n.node_id = s.node_id " +
+            "WHERE s.user_id = ANY (?) AND n.heartbeat_at >= " + LIVE_SINCE;
+
+    private static final String SELECT_NODES_BY_CHAT =
+            "SELECT DISTINCT p.chat_id, s.node_id FROM chat_participants p " +
+            "JOIN ws_user_nodes s ON s.user_id = p.user_id " +
+            "JOIN ws_nodes n ON n.node_id = s.node_id " +
+            "WHERE p.chat_id = ANY (?) AND p.left_at IS NULL AND n.heartbeat_at >= " + LIVE_SINCE;
+
+    private static final String SELECT_LIVE_NODES = "SELECT node_id FROM ws_nodes WHERE heartbeat_at >= " + LIVE_SINCE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final KafkaAdmin kafkaAdmin;
+    private final PresenceService presenceService;
+    private final String nodeId;
+    private ThreadPoolTaskScheduler heartbeatScheduler;
+    // Set when this node finds it was swept; cleared once its topic exists again
+    private volatile boolean topicMissing;
+
+    @Value("${application.node.ttl-ms:20000}")
+    private long ttlMs;
+
+    @Value("${application.node.heartbeat-interval-ms:5000}")
+    private long heartbeatIntervalMs;
+
+    // Events on a node topic are only useful briefly; a node silent this long is gone for good
+    @Value("${application.node.topic-retention-ms:3600000}")
+    private long topicRetentionMs;
+
+    // Only with Kafka can there be other nodes, and node topics
+    @Value("${" + EventBus.MODE_PROPERTY + ":" + EventBus.MODE_KAFKA + "}")
+    private String eventBusMode;
+
+    public NodeSessionRegistry(JdbcTemplate jdbcTemplate,
+                               KafkaAdmin kafkaAdmin,
+                               PresenceService presenceService,
+                               @Value("${application.node.id:}") String configuredNodeId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.kafkaAdmin = kafkaAdmin;
+        this.presenceService = presenceService;
+        this.nodeId = configuredNodeId.isBlank() ? generateNodeId() : sanitize(configuredNodeId);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String getTopic() {
+        return topicFor(nodeId);
+    }
+
+    public static String topicFor(String nodeId) {
+        return NODE_TOPIC_PREFIX + nodeId;
+    }
+
+    // One partition keeps this node's events in order
+    public NewTopic newTopic() {
+        return TopicBuilder.name(getTopic())
+                .partitions(1)
+                .replicas(1)
+                .config(TopicConfig.RETENTION_MS_CONFIG, Long.toString(topicRetentionMs))
+                .build();
+    }
+
+    @PostConstruct
+    public void register() {
+        jdbcTemplate.queryForObject(HEARTBEAT, Boolean.class, nodeId);
+        if (heartbeatIntervalMs > 0) {
+            // Not a bean: a TaskScheduler bean would replace the one @Scheduled jobs run on
+            heartbeatScheduler = new ThreadPoolTaskScheduler();
+            heartbeatScheduler.setPoolSize(1);
+            heartbeatScheduler.setThreadNamePrefix("node-heartbeat-");
+            heartbeatScheduler.setDaemon(true);
+            heartbeatScheduler.initialize();
+            heartbeatScheduler.scheduleWithFixedDelay(this::heartbeat, Duration.ofMillis(heartbeatIntervalMs));
+        }
+        log.info("WebSocket node {} registered, listening on {}", nodeId, getTopic());
+    }
+
+    // The only place a live node's topic is deleted; the sweep of another node never races a recovering one
+    @PreDestroy
+    public void deregister() {
+        if (heartbeatScheduler != null) {
+            heartbeatScheduler.shutdown();
+        }
+        jdbcTemplate.update(DELETE_NODE, nodeId);
+        deleteTopics(List.of(nodeId));
+    }
+
+    public void heartbeat() {
+        Boolean inserted = jdbcTemplate.queryForObject(HEARTBEAT, Boolean.class, nodeId);
+        if (Boolean.TRUE.equals(inserted)) {
+            // Swept after a pause longer than the topic retention: the session rows and the topic went with it
+            log.warn("WebSocket node {} was swept, recreating {} and re-registering its users", nodeId, getTopic());
+            topicMissing = EventBus.MODE_KAFKA.equals(eventBusMode);
+            reconcile();
+        }
+        if (topicMissing) {
+            topicMissing = !createTopic();
+        }
+    }
+
+    // Rows follow the user's first and last session on this node; the current state decides, since events race.
+    // Ordered before the other listeners, which may rely on the row (DeliveryStatusService)
+    @EventListener
+    @Order(0)
+    public void onPresenceChanged(PresenceChangedEvent event) {
+        if (presenceService.isOnline(event.userId())) {
+            jdbcTemplate.update(INSERT_USER, event.userId(), nodeId);
+        } else {
+            jdbcTemplate.update(DELETE_USER, event.userId(), nodeId);
+        }
+    }
+
+    /**
+     * Makes this node's rows match its local sessions. Connect and disconnect of the same user racing on
+     * two threads can leave a row missing or stale; this bounds how long that lasts.
+     */
+    @Scheduled(fixedDelayString = "${application.node.reconcile-interval-ms:60000}",
+               initialDelayString = "${application.node.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        Set<String> registered = new HashSet<>(jdbcTemplate.queryForList(SELECT_NODE_USERS, String.class, nodeId));
+        List<Object[]> inserts = new ArrayList<>();
+        for (String userId : presenceService.onlineUsers()) {
+            if (!registered.remove(userId)) {
+                inserts.add(new Object[]{userId, nodeId});
+            }
+        }
+        List<Object[]> deletes = new ArrayList<>(registered.size());
+        registered.forEach(userId -> deletes.add(new Object[]{userId, nodeId}));
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_USER, inserts);
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_USER, deletes);
+        }
+        if (!inserts.isEmpty() || !deletes.isEmpty()) {
+            log.info("Reconciled WebSocket node {}: {} users added, {} removed", nodeId, inserts.size(), deletes.size());
+        }
+    }
+
+    /**
+     * Removes nodes silent for longer than the topic retention, with their topics. Every node sweeps;
+     * DELETE ... RETURNING hands each dead node to exactly one of them. Stale nodes are skipped by routing
+     * long before that, and whatever their topics still hold has expired by then.
+     */
+    @Scheduled(fixedDelayString = "${application.node.ttl-ms:20000}", initialDelayString = "${application.node.ttl-ms:20000}")
+    public void sweepDeadNodes() {
+        List<String> dead = jdbcTemplate.queryForList(SWEEP_DEAD_NODES, String.class, topicRetentionMs / 1000.0);
+        if (!dead.isEmpty()) {
+            log.info("Removed dead WebSocket nodes {}", dead);
+            deleteTopics(dead);
+        }
+    }
+
+    /**
+     * The given users that have a session on any live node. A single node answers from memory.
+     */
+    public Set<String> connectedUsers(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return Set.of();
+        }
+        if (!EventBus.MODE_KAFKA.equals(eventBusMode)) {
+            Set<String> connected = new HashSet<>();
+            for (String userId : userIds) {
+                if (presenceService.isOnline(userId)) {
+                    connected.add(userId);
+                }
+            }
+            return connected;
+        }
+        return new HashSet<>(jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_CONNECTED_USERS);
+            statement.setArray(1, connection.createArrayOf("varchar", userIds.toArray()));
+            statement.setDouble(2, ttlSeconds());
+            return statement;
+        }, (resultSet, rowNum) -> resultSet.getString(1)));
+    }
+
+    /**
+     * For each chat, the live nodes holding a session of at least one of its participants. Chats without
+     * any connected participant are absent from the result.
+     */
+    public Map<Long, Set<String>> nodesByChat(Collection<Long> chatIds) {
+        Map<Long, Set<String>> nodes = new HashMap<>();
+        if (chatIds.isEmpty()) {
+            return nodes;
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_NODES_BY_CHAT);
+            statement.setArray(1, connection.createArrayOf("bigint", chatIds.toArray()));
+            statement.setDouble(2, ttlSeconds());
+            return statement;
+        }, (RowCallbackHandler) resultSet ->
+                nodes.computeIfAbsent(resultSet.getLong(1), key -> new LinkedHashSet<>()).add(resultSet.getString(2)));
+        return nodes;
+    }
+
+    public List<String> liveNodes() {
+        return jdbcTemplate.queryForList(SELECT_LIVE_NODES, String.class, ttlSeconds());
+    }
+
+    private double ttlSeconds() {
+        return ttlMs / 1000.0;
+    }
+
+    // Fails while the broker is still deleting the old topic; the next heartbeat tries again
+    private boolean createTopic() {
+        try (AdminClient adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties())) {
+            adminClient.createTopics(List.of(newTopic())).all().get(10, TimeUnit.SECONDS);
+            return true;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TopicExistsException) {
+                return true;
+            }
+            log.warn("Could not recreate node topic {}: {}", getTopic(), e.getCause().getMessage());
+        } catch (Exception e) {
+            log.warn("Could not recreate node topic {}: {}", getTopic(), e.getMessage());
+        }
+        return false;
+    }
+
+    private void deleteTopics(List<String> nodeIds) {
+        if (!EventBus.MODE_KAFKA.equals(eventBusMode)) {
+            return;
+        }
+        List<String> topics = nodeIds.stream().map(NodeSessionRegistry::topicFor).toList();
+        try (AdminClient adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties())) {
+            adminClient.deleteTopics(topics).all().get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("Could not delete node topics {}: {}", topics, e.getMessage());
+        }
+    }
+
+    private static String generateNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        // A restarted process gets a new id, so it never inherits the topic offsets of its predecessor
+        return sanitize(host) + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    // Kafka topic names allow [a-zA-Z0-9._-] only
+    private static String sanitize(String value) {
+        return value.trim().replaceAll("[^a-zA-Z0-9._-]", "-");
+    }
+}
@@ -0,0 +1,37 @@
+package com.chatspot.chatapp.websocket;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+
+/**
+ * How a frame to a client may be treated when its session falls behind, see {@link SessionOutboundExecutor}.
+ * <p>
+ * WebSocketMessageBroadcaster sets the class and an optional coalesce key as message headers. The broker copies
+ * them to the frame of every subscriber; they stay on the server, since only native headers reach the client.
+ */
+public enum OutboundFrameClass {
+
+    // Never dropped: the session is closed with a resume hint instead
+    MESSAGE,
+    // Delivery and read receipts, reactions: a queued frame is dropped when a newer one with the same key comes
+    STATE,
+    // Typing indicators, presence diffs and heartbeats: dropped first
+    EPHEMERAL;
+
+    public static final String HEADER = "chatappFrameClass";
+    public static final String COALESCE_KEY_HEADER = "chatappCoalesceKey";
+
+    // Frames the broadcaster did not classify, e.g. CONNECTED or replies of message handlers, count as messages
+    public static OutboundFrameClass of(Message<?> message) {
+        if (message.getHeaders().get(HEADER) instanceof OutboundFrameClass frameClass) {
+            return frameClass;
+        }
+        return SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.HEARTBEAT
+                ? EPHEMERAL : MESSAGE;
+    }
+
+    public static String coalesceKey(Message<?> message) {
+        return message.getHeaders().get(COALESCE_KEY_HEADER, String.class);
+    }
+}
@@ -0,0 +1,280 @@
+package com.chatspot.chatapp.websocket;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor of the client outbound channel that gives every WebSocket session its own bounded queue.
+ * <p>
+ * A session's frames are sent one at a time in publish order by whichever pool thread drains its queue, so a
+ * slow client ties up at most one thread and never delays other sessions. The queue is bounded by frame count
+ * and bytes. When a session falls behind, frames are shed by {@link OutboundFrameClass}: ephemeral frames are
+ * dropped once the queue is half full, a state frame drops a queued one with the same coalesce key and joins
+ * the tail, so it never overtakes frames published before it, and a frame that still does not fit closes the
+ * session with {@link #SLOW_CONSUMER} rather than being dropped. So does any non-ephemeral frame while a send
+ * has been blocked for longer than the send time limit. Clients reconnect and load history after the last
+ * sequence number they received.
+ * <p>
+ * Also a decorator factory for the WebSocket handler, which it uses to create and remove the queues with
+ * their sessions. Frames of sessions it does not know go straight to the pool.
+ */
+@Slf4j
+public class SessionOutboundExecutor extends ThreadPoolTaskExecutor implements WebSocketHandlerDecoratorFactory {
+
+    public static final CloseStatus SLOW_CONSUMER = CloseStatus.SESSION_NOT_RELIABLE.withReason("resume");
+
+    // Frames sent before the draining thread goes back to the pool, so busy sessions take turns
+    private static final int DRAIN_BATCH = 64;
+
+    private final int queueCapacity;
+    private final long bufferSizeLimit;
+    private final long sendTimeLimitNanos;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary sessionDepth;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Map<String, SessionQueue> queues = new ConcurrentHashMap<>();
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    public SessionOutboundExecutor(MeterRegistry meterRegistry, int queueCapacity, long bufferSizeLimit, long sendTimeLimitMs) {
+        this.meterRegistry = meterRegistry;
+        this.queueCapacity = queueCapacity;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMs);
+        this.sessionDepth = DistributionSummary.builder("chatapp.websocket.outbound.depth")
+                .description("Frames queued for a session, recorded whenever one is added")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        meterRegistry.gauge("chatapp.websocket.outbound.queued", queued);
+        setCorePoolSize(Runtime.getRuntime().availableProcessors() * 2);
+        setAllowCoreThreadTimeOut(true);
+        setThreadNamePrefix("clientOutboundChannel-");
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        SessionQueue queue = null;
+        if (task instanceof MessageHandlingRunnable runnable) {
+            String sessionId = SimpMessageHeaderAccessor.getSessionId(runnable.getMessage().getHeaders());
+            queue = sessionId != null ? queues.get(sessionId) : null;
+        }
+        if (queue == null) {
+            super.execute(task);
+            return;
+        }
+        switch (queue.offer((MessageHandlingRunnable) task)) {
+            case DRAIN -> super.execute(queue::drain);
+            case DISCONNECT -> disconnect(queue.sessionId);
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                sessions.put(session.getId(), session);
+                queues.put(session.getId(), new SessionQueue(session.getId()));
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                SessionQueue queue = queues.remove(session.getId());
+                if (queue != null) {
+                    queue.close();
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    // Closed on a pool thread: closing sends a close frame, which can block like any other send
+    private void disconnect(String sessionId) {
+        WebSocketSession session = sessions.get(sessionId);
+        if (session == null) {
+            return;
+        }
+        meterRegistry.counter("chatapp.websocket.outbound.disconnects").increment();
+        log.warn("Closing WebSocket session {} of {}: client is not keeping up", sessionId, session.getPrincipal());
+        super.execute(() -> {
+            try {
+                session.close(SLOW_CONSUMER);
+            } catch (Exception e) {
+                log.debug("Could not close WebSocket session {}: {}", sessionId, e.getMessage());
+            }
+        });
+    }
+
+    private void dropped(OutboundFrameClass frameClass, String reason) {
+        meterRegistry.counter("chatapp.websocket.outbound.dropped", "class", frameClass.name(), "reason", reason).increment();
+    }
+
+    private static int sizeOf(Message<?> message) {
+        return message.getPayload() instanceof byte[] payload ? payload.length : 0;
+    }
+
+    private enum Offer { QUEUED, DRAIN, DROPPED, DISCONNECT }
+
+    private static final class Frame {
+        final OutboundFrameClass frameClass;
+        final String coalesceKey;
+        final MessageHandlingRunnable task;
+        final int size;
+
+        Frame(OutboundFrameClass frameClass, String coalesceKey, MessageHandlingRunnable task, int size) {
+            this.frameClass = frameClass;
+            this.coalesceKey = coalesceKey;
+            this.task = task;
+            this.size = size;
+        }
+    }
+
+    // Guarded by its own monitor, which only this session's publishers and its draining thread take
+    private final class SessionQueue {
+        private final String sessionId;
+        private final Deque<Frame> frames = new ArrayDeque<>();
+        private final Map<String, Frame> framesByKey = new HashMap<>();
+        private long bytes;
+        private boolean draining;
+        private boolean closed;
+        // System.nanoTime() when the send in progress started, 0 while idle
+        private volatile long sendStartedAt;
+
+        SessionQueue(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        synchronized Offer offer(MessageHandlingRunnable task) {
+            if (closed) {
+                return Offer.DROPPED;
+            }
+            Message<?> message = task.getMessage();
+            OutboundFrameClass frameClass = OutboundFrameClass.of(message);
+            String coalesceKey = OutboundFrameClass.coalesceKey(message);
+            int size = sizeOf(message);
+            Frame pending = coalesceKey != null ? framesByKey.get(coalesceKey) : null;
+            if (pending != null) {
+                // The older state is superseded; the new one queues like any other frame
+                frames.remove(pending);
+                forget(pending);
+                dropped(pending.frameClass, "coalesced");
+            }
+            long startedAt = sendStartedAt;
+            boolean stalled = startedAt != 0 && System.nanoTime() - startedAt > sendTimeLimitNanos;
+            if (frameClass == OutboundFrameClass.EPHEMERAL) {
+                if (stalled || frames.size() >= queueCapacity / 2 || bytes + size > bufferSizeLimit / 2) {
+                    dropped(frameClass, "overflow");
+                    return Offer.DROPPED;
+                }
+            } else {
+                if (!fits(size)) {
+                    evictEphemeral();
+                }
+                if (stalled || !fits(size)) {
+                    closed = true;
+                    discard();
+                    return Offer.DISCONNECT;
+                }
+            }
+            Frame frame = new Frame(frameClass, coalesceKey, task, size);
+            frames.add(frame);
+            if (coalesceKey != null) {
+                framesByKey.put(coalesceKey, frame);
+            }
+            bytes += size;
+            queued.incrementAndGet();
+            sessionDepth.record(frames.size());
+            if (draining) {
+                return Offer.QUEUED;
+            }
+            draining = true;
+            return Offer.DRAIN;
+        }
+
+        void drain() {
+            for (int sent = 0; sent < DRAIN_BATCH; sent++) {
+                MessageHandlingRunnable task;
+                synchronized (this) {
+                    Frame frame = closed ? null : frames.poll();
+                    if (frame == null) {
+                        draining = false;
+                        return;
+                    }
+                    if (frame.coalesceKey != null) {
+                        framesByKey.remove(frame.coalesceKey);
+                    }
+                    bytes -= frame.size;
+                    queued.decrementAndGet();
+                    task = frame.task;
+                    sendStartedAt = System.nanoTime();
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    // Already reported by the channel; the next frames still go out
+                    log.debug("Could not send frame to WebSocket session {}: {}", sessionId, e.getMessage());
+                } finally {
+                    sendStartedAt = 0;
+                }
+            }
+            SessionOutboundExecutor.super.execute(this::drain);
+        }
+
+        synchronized void close() {
+            closed = true;
+            discard();
+        }
+
+        private boolean fits(int size) {
+            return frames.size() < queueCapacity && bytes + size <= bufferSizeLimit;
+        }
+
+        private void evictEphemeral() {
+            frames.removeIf(frame -> {
+                if (frame.frameClass != OutboundFrameClass.EPHEMERAL) {
+                    return false;
+                }
+                forget(frame);
+                dropped(frame.frameClass, "evicted");
+                return true;
+            });
+        }
+
+        private void discard() {
+            frames.forEach(frame -> {
+                forget(frame);
+                dropped(frame.frameClass, "disconnect");
+            });
+            frames.clear();
+        }
+
+        private void forget(Frame frame) {
+            if (frame.coalesceKey != null) {
+                framesByKey.remove(frame.coalesceKey);
+            }
+            bytes -= frame.size;
+            queued.decrementAndGet();
+        }
+    }
+}
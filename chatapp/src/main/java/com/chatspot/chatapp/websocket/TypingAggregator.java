@@ -0,0 +1,174 @@
+package com.chatspot.chatapp.websocket;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns per-keystroke typing frames into at most one "who is typing" frame per chat per flush interval.
+ * <p>
+ * A typing frame only moves the user's expiry forward; the chat is marked changed when a user starts or stops
+ * typing, not on every keystroke. Expiry runs on a timer wheel: one slot per tick covering the typing TTL,
+ * and each typing user has a single entry in it. When an entry's slot comes round and the user has typed since,
+ * the entry is moved to the slot of the new expiry instead of expiring. Clients therefore need not send a stop
+ * frame, although one is honoured.
+ */
+@Component
+@Slf4j
+public class TypingAggregator {
+
+    private final WebSocketMessageBroadcaster webSocketBroadcaster;
+    private final long tickMs;
+    private final long ttlTicks;
+    private final long flushEveryTicks;
+    // chat id -> user id -> expiry tick; the inner maps are only touched inside compute of their chat
+    private final Map<Long, Map<String, Long>> typers = new ConcurrentHashMap<>();
+    private final Set<Long> changedChats = ConcurrentHashMap.newKeySet();
+    // Users with an entry in the wheel, which may outlive a stop frame
+    private final Set<Expiry> pending = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<Expiry>[] wheel;
+    private volatile long currentTick;
+    private ScheduledExecutorService ticker;
+
+    @SuppressWarnings("unchecked")
+    public TypingAggregator(WebSocketMessageBroadcaster webSocketBroadcaster,
+                            @Value("${application.websocket.typing.tick-ms:100}") long tickMs,
+                            @Value("${application.websocket.typing.ttl-ms:5000}") long ttlMs,
+                            @Value("${application.websocket.typing.flush-interval-ms:500}") long flushIntervalMs) {
+        this.webSocketBroadcaster = webSocketBroadcaster;
+        this.tickMs = tickMs;
+        this.ttlTicks = Math.max(1, ttlMs / tickMs);
+        this.flushEveryTicks = Math.max(1, flushIntervalMs / tickMs);
+        // Every expiry lies at most ttlTicks ahead, so a slot never holds entries of two different rounds
+        this.wheel = new ConcurrentLinkedQueue[(int) ttlTicks + 1];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "typing-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    public void onTyping(Long chatId, String userId, boolean typing) {
+        boolean changed;
+        if (typing) {
+            long expiry = currentTick + ttlTicks;
+            boolean[] started = new boolean[1];
+            typers.compute(chatId, (key, users) -> {
+                Map<String, Long> result = users != null ? users : new HashMap<>();
+                started[0] = result.put(userId, expiry) == null;
+                return result;
+            });
+            changed = started[0];
+            if (changed) {
+                // A user who stopped and started again may still have an entry, which moves on to the new expiry
+                Expiry entry = new Expiry(chatId, userId);
+                if (pending.add(entry)) {
+                    schedule(entry, expiry);
+                }
+            }
+        } else {
+            // The wheel entry stays behind and is dropped when its slot comes round
+            changed = remove(chatId, userId);
+        }
+        if (changed) {
+            changedChats.add(chatId);
+        }
+    }
+
+    // Run by the ticker thread only
+    void tick() {
+        try {
+            long tick = ++currentTick;
+            ConcurrentLinkedQueue<Expiry> slot = wheel[(int) (tick % wheel.length)];
+            for (Expiry expiry = slot.poll(); expiry != null; expiry = slot.poll()) {
+                // Released before the expiry is read, so a user starting meanwhile is either seen here or scheduled anew
+                pending.remove(expiry);
+                expire(expiry, tick);
+            }
+            if (tick % flushEveryTicks == 0) {
+                flush();
+            }
+        } catch (Exception e) {
+            // An exception would cancel the schedule
+            log.error("Typing indicator tick failed: {}", e.getMessage());
+        }
+    }
+
+    // Decided inside compute of the chat, so a typing frame arriving meanwhile either extends or restarts the user
+    private void expire(Expiry expiry, long tick) {
+        long[] rescheduleAt = new long[1];
+        boolean[] removed = new boolean[1];
+        typers.computeIfPresent(expiry.chatId(), (key, users) -> {
+            Long expiresAt = users.get(expiry.userId());
+            if (expiresAt != null && expiresAt > tick) {
+                rescheduleAt[0] = expiresAt;
+            } else if (expiresAt != null) {
+                users.remove(expiry.userId());
+                removed[0] = true;
+            }
+            return users;
+        });
+        // Typed again since this entry was scheduled
+        if (rescheduleAt[0] > 0 && pending.add(expiry)) {
+            schedule(expiry, rescheduleAt[0]);
+        }
+        if (removed[0]) {
+            changedChats.add(expiry.chatId());
+        }
+    }
+
+    private void flush() {
+        for (Long chatId : changedChats) {
+            changedChats.remove(chatId);
+            List<String> current = new ArrayList<>();
+            typers.computeIfPresent(chatId, (key, users) -> {
+                current.addAll(users.keySet());
+                return users.isEmpty() ? null : users;
+            });
+            webSocketBroadcaster.broadcastTypingUsers(chatId, current);
+        }
+    }
+
+    // Removes the user; returns whether they were typing
+    private boolean remove(Long chatId, String userId) {
+        boolean[] removed = new boolean[1];
+        typers.computeIfPresent(chatId, (key, users) -> {
+            removed[0] = users.remove(userId) != null;
+            return users;
+        });
+        return removed[0];
+    }
+
+    private void schedule(Expiry expiry, long expiresAt) {
+        wheel[(int) (expiresAt % wheel.length)].add(expiry);
+    }
+
+    private record Expiry(Long chatId, String userId) {
+    }
+}
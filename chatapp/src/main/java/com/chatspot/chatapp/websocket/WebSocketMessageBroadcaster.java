@@ -1,14 +1,25 @@
 package com.chatspot.chatapp.websocket;
 
+import com.chatspot.chatapp.common.dto.response.UserPresenceDto;
 import com.chatspot.chatapp.kafka.event.MessageEvent;
 import com.chatspot.chatapp.kafka.event.ReactionEvent;
 import com.chatspot.chatapp.kafka.event.DeliveryStatusEvent;
+import com.chatspot.chatapp.kafka.serialization.ChatEventBinaryCodec;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
 
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -16,17 +27,32 @@ import java.util.Map;
 public class WebSocketMessageBroadcaster {
 
     private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final BinaryBodyInterceptor binaryBodyInterceptor;
+
+    @Value("${application.websocket.message-delivery:CHAT_TOPIC}")
+    private MessageDeliveryStrategy messageDelivery;
 
     public void broadcastNewMessage(MessageEvent event) {
         try {
-            // Broadcast to chat topic
-            messagingTemplate.convertAndSend("/topic/chat/" + event.getChatId(), event);
-            
-            // Send to each recipient's personal queue
-            if (event.getRecipients() != null) {
-                event.getRecipients().forEach(recipientId -> {
-                    messagingTemplate.convertAndSendToUser(recipientId, "/queue/messages", event);
-                });
+            // Encoded once; every destination shares the same immutable payload
+            byte[] payload = toJson(event);
+            // Picked per session by BinaryBodyInterceptor; only encoded while a session wants it
+            byte[] binaryBody = binaryBodyInterceptor.hasBinarySessions() ? ChatEventBinaryCodec.encode(event) : null;
+            if (messageDelivery == MessageDeliveryStrategy.CHAT_TOPIC) {
+                send("/topic/chat/" + event.getChatId(), payload, binaryBody, OutboundFrameClass.MESSAGE, null);
+            } else {
+                // The sender's other devices get their own message too, as they would on the chat topic
+                Set<String> userIds = new LinkedHashSet<>();
+                if (event.getSenderId() != null) {
+                    userIds.add(event.getSenderId());
+                }
+                if (event.getRecipients() != null) {
+                    userIds.addAll(event.getRecipients());
+                }
+                for (String userId : userIds) {
+                    send("/user/" + userId + "/queue/messages", payload, binaryBody, OutboundFrameClass.MESSAGE, null);
+                }
             }
             
             log.info("Broadcasted new message {} to chat {}", event.getMessageId(), event.getChatId());
@@ -38,7 +64,8 @@ public class WebSocketMessageBroadcaster {
     public void broadcastReaction(ReactionEvent event) {
         try {
             // Broadcast reaction to message topic
-            messagingTemplate.convertAndSend("/topic/message/" + event.getMessageId() + "/reactions", event);
+            send("/topic/message/" + event.getMessageId() + "/reactions", toJson(event),
+                    OutboundFrameClass.STATE, "reaction:" + event.getMessageId() + ":" + event.getUserId());
             
             log.info("Broadcasted reaction for message {}", event.getMessageId());
         } catch (Exception e) {
@@ -49,7 +76,8 @@ public class WebSocketMessageBroadcaster {
     public void broadcastDeliveryStatus(DeliveryStatusEvent event) {
         try {
             // Send delivery status to message sender
-            messagingTemplate.convertAndSend("/topic/message/" + event.getMessageId() + "/delivery", event);
+            send("/topic/message/" + event.getMessageId() + "/delivery", toJson(event),
+                    OutboundFrameClass.STATE, "delivery:" + event.getMessageId() + ":" + deliveryUsers(event));
             
             log.info("Broadcasted delivery status for message {}", event.getMessageId());
         } catch (Exception e) {
@@ -57,31 +85,74 @@ public class WebSocketMessageBroadcaster {
         }
     }
 
-    public void broadcastTypingIndicator(String chatId, String userId, boolean isTyping) {
+    public void broadcastReadReceipt(DeliveryStatusEvent event) {
+        try {
+            // One receipt covers every message of the chat up to the watermark
+            send("/topic/chat/" + event.getChatId() + "/read", toJson(event),
+                    OutboundFrameClass.STATE, "read:" + event.getChatId() + ":" + event.getUserId());
+            
+            log.info("Broadcasted read receipt up to seq {} in chat {} for user {}", event.getUpToSeq(), event.getChatId(), event.getUserId());
+        } catch (Exception e) {
+            log.error("Error broadcasting read receipt: {}", e.getMessage());
+        }
+    }
+
+    // The full set of users typing in the chat, so a lost frame is corrected by the next one
+    public void broadcastTypingUsers(Long chatId, List<String> userIds) {
         try {
             Map<String, Object> typingEvent = Map.of(
-                "userId", userId,
-                "isTyping", isTyping,
+                "chatId", chatId,
+                "userIds", userIds,
                 "timestamp", System.currentTimeMillis()
             );
             
-            messagingTemplate.convertAndSend("/topic/chat/" + chatId + "/typing", typingEvent);
+            send("/topic/chat/" + chatId + "/typing", toJson(typingEvent),
+                    OutboundFrameClass.EPHEMERAL, "typing:" + chatId);
         } catch (Exception e) {
             log.error("Error broadcasting typing indicator: {}", e.getMessage());
         }
     }
 
-    public void broadcastUserPresence(String userId, String status) {
+    // Only the watcher's contacts that changed since the last diff
+    public void sendPresenceDiff(String userId, List<UserPresenceDto> contacts) {
         try {
-            Map<String, Object> presenceEvent = Map.of(
-                "userId", userId,
-                "status", status,
+            Map<String, Object> presenceDiff = Map.of(
+                "users", contacts,
                 "timestamp", System.currentTimeMillis()
             );
             
-            messagingTemplate.convertAndSend("/topic/user/" + userId + "/presence", presenceEvent);
+            send("/user/" + userId + "/queue/presence", toJson(presenceDiff), OutboundFrameClass.EPHEMERAL, null);
         } catch (Exception e) {
-            log.error("Error broadcasting user presence: {}", e.getMessage());
+            log.error("Error sending presence diff to user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private byte[] toJson(Object payload) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(payload);
+    }
+
+    // A batched status names all of its users, so it only replaces a status for exactly the same users
+    private static String deliveryUsers(DeliveryStatusEvent event) {
+        return event.getUserIds() != null ? String.join(",", event.getUserIds()) : event.getUserId();
+    }
+
+    // Sends already encoded JSON, so the message converter does not encode it again per destination.
+    // The frame class and coalesce key tell SessionOutboundExecutor what it may do with the frame for a slow client.
+    private void send(String destination, byte[] payload, OutboundFrameClass frameClass, String coalesceKey) {
+        send(destination, payload, null, frameClass, coalesceKey);
+    }
+
+    private void send(String destination, byte[] payload, byte[] binaryBody, OutboundFrameClass frameClass, String coalesceKey) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        if (binaryBody != null) {
+            accessor.setHeader(BinaryBodyInterceptor.BINARY_BODY_HEADER, binaryBody);
+        }
+        accessor.setHeader(OutboundFrameClass.HEADER, frameClass);
+        if (coalesceKey != null) {
+            accessor.setHeader(OutboundFrameClass.COALESCE_KEY_HEADER, coalesceKey);
         }
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
     }
 }
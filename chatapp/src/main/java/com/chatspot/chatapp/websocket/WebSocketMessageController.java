@@ -1,6 +1,7 @@
 package com.chatspot.chatapp.websocket;
 
 
+import com.chatspot.chatapp.service.ContactPresenceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.MessageMapping;
@@ -18,17 +19,18 @@ import java.util.Map;
 public class WebSocketMessageController {
 
     private final SimpMessagingTemplate messagingTemplate;
+    private final TypingAggregator typingAggregator;
+    private final ContactPresenceService contactPresenceService;
 
 
     @MessageMapping("/chat.typing")
     public void handleTypingIndicator(@Payload Map<String, Object> message, Principal principal) {
         try {
-            String chatId = (String) message.get("chatId");
-            String userId = principal.getName();
+            Long chatId = Long.valueOf(String.valueOf(message.get("chatId")));
+            // Frames without isTyping count as a keystroke; typing stops by itself after the TTL
+            boolean isTyping = !Boolean.FALSE.equals(message.get("isTyping"));
             
-            // Broadcast typing indicator to chat participants
-            messagingTemplate.convertAndSend("/topic/chat/" + chatId + "/typing", 
-                Map.of("userId", userId, "isTyping", message.get("isTyping")));
+            typingAggregator.onTyping(chatId, principal.getName(), isTyping);
                 
         } catch (Exception e) {
             log.error("Error handling typing indicator: {}", e.getMessage());
@@ -40,10 +42,10 @@ public class WebSocketMessageController {
         try {
             String userId = principal.getName();
             String status = (String) message.get("status");
+            // Activity is already recorded for every inbound frame; this only relays the chosen status
             
-            // Broadcast presence update
-            messagingTemplate.convertAndSend("/topic/user/" + userId + "/presence", 
-                Map.of("userId", userId, "status", status));
+            // Goes out to the user's contacts with the next presence diff
+            contactPresenceService.onStatusChange(userId, status);
                 
         } catch (Exception e) {
             log.error("Error handling presence update: {}", e.getMessage());
@@ -0,0 +1,21 @@
+-- Which application nodes hold WebSocket sessions of which users, so an event is pushed only to the nodes
+-- that can deliver it. Nodes heartbeat into ws_nodes; a node whose heartbeat is older than the TTL is
+-- ignored by routing and swept together with its sessions.
+
+CREATE TABLE ws_nodes (
+    node_id      VARCHAR(128) NOT NULL,
+    started_at   TIMESTAMP(6) NOT NULL DEFAULT now(),
+    heartbeat_at TIMESTAMP(6) NOT NULL DEFAULT now(),
+    CONSTRAINT pk_ws_nodes PRIMARY KEY (node_id)
+);
+
+-- One row per (user, node) while the user has at least one session on that node
+CREATE TABLE ws_user_nodes (
+    user_id      VARCHAR(255) NOT NULL,
+    node_id      VARCHAR(128) NOT NULL,
+    connected_at TIMESTAMP(6) NOT NULL DEFAULT now(),
+    CONSTRAINT pk_ws_user_nodes PRIMARY KEY (user_id, node_id),
+    CONSTRAINT fk_ws_user_nodes_node FOREIGN KEY (node_id) REFERENCES ws_nodes (node_id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_ws_user_nodes_node ON ws_user_nodes (node_id);
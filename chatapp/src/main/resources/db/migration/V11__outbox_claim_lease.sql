@@ -0,0 +1,4 @@
+-- The relay claims outbox rows with a lease instead of holding row locks while it waits on the broker.
+-- A claim that is neither deleted nor released before locked_until (relay crashed) becomes claimable again.
+
+ALTER TABLE outbox_events ADD COLUMN locked_until TIMESTAMP(6);
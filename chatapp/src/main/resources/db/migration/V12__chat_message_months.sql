@@ -0,0 +1,17 @@
+-- Which months each chat has messages in, and the seq range it has in each. Seq is gap-free per chat, so a
+-- page of history is a known seq range, and this index names the month partitions that range lies in.
+-- Written by the same statement that records the chat's latest message.
+
+CREATE TABLE chat_message_months (
+    chat_id   BIGINT NOT NULL,
+    month     DATE   NOT NULL,
+    first_seq BIGINT NOT NULL,
+    last_seq  BIGINT NOT NULL,
+    CONSTRAINT pk_chat_message_months PRIMARY KEY (chat_id, month),
+    CONSTRAINT fk_chat_message_months_chat FOREIGN KEY (chat_id) REFERENCES chats (id)
+);
+
+INSERT INTO chat_message_months (chat_id, month, first_seq, last_seq)
+SELECT chat_id, date_trunc('month', created_at)::DATE, min(seq), max(seq)
+FROM messages
+GROUP BY chat_id, date_trunc('month', created_at)::DATE;
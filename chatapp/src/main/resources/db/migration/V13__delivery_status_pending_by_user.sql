@@ -0,0 +1,5 @@
+-- The rows still SENT to a user, so everything they missed while offline is found in one index range scan
+-- per month when they connect. Rows leave the index once delivered.
+
+CREATE INDEX idx_message_delivery_status_user_sent
+    ON message_delivery_status (user_id, message_created_at) WHERE status = 'SENT';
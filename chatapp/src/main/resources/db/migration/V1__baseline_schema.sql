@@ -0,0 +1,81 @@
+-- Schema as previously generated by hibernate.ddl-auto=update.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate) and skip it.
+
+CREATE TABLE users (
+    id              VARCHAR(255) NOT NULL,
+    created_at      TIMESTAMP(6) NOT NULL,
+    last_modified   TIMESTAMP(6),
+    email           VARCHAR(255) NOT NULL,
+    first_name      VARCHAR(255),
+    last_name       VARCHAR(255),
+    last_seen       TIMESTAMP(6),
+    profile_picture VARCHAR(255),
+    CONSTRAINT pk_users PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE chats (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    created_at    TIMESTAMP(6) NOT NULL,
+    last_modified TIMESTAMP(6),
+    name          VARCHAR(255),
+    description   VARCHAR(255),
+    type          VARCHAR(255) CHECK (type IN ('INDIVIDUAL', 'GROUP')),
+    created_by    VARCHAR(255),
+    CONSTRAINT pk_chats PRIMARY KEY (id),
+    CONSTRAINT fk_chats_created_by FOREIGN KEY (created_by) REFERENCES users (id)
+);
+
+CREATE TABLE chat_participants (
+    chat_id      BIGINT       NOT NULL,
+    user_id      VARCHAR(255) NOT NULL,
+    role         VARCHAR(255) CHECK (role IN ('ADMIN', 'MEMBER')),
+    joined_at    TIMESTAMP(6),
+    left_at      TIMESTAMP(6),
+    last_read_at TIMESTAMP(6),
+    CONSTRAINT pk_chat_participants PRIMARY KEY (chat_id, user_id),
+    CONSTRAINT fk_chat_participants_chat FOREIGN KEY (chat_id) REFERENCES chats (id),
+    CONSTRAINT fk_chat_participants_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE messages (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    created_at    TIMESTAMP(6) NOT NULL,
+    last_modified TIMESTAMP(6),
+    chat_id       BIGINT       NOT NULL,
+    sender_id     VARCHAR(255) NOT NULL,
+    type          VARCHAR(255) NOT NULL CHECK (type IN ('TEXT', 'IMAGE', 'VIDEO', 'FILE', 'MULTIMODAL')),
+    content       TEXT,
+    file_name     VARCHAR(255),
+    file_path     VARCHAR(255),
+    file_url      VARCHAR(255),
+    file_size     BIGINT,
+    mime_type     VARCHAR(255),
+    status        VARCHAR(255) CHECK (status IN ('SENT', 'DELIVERED', 'READ')),
+    is_deleted    BOOLEAN,
+    deleted_at    TIMESTAMP(6),
+    CONSTRAINT pk_messages PRIMARY KEY (id),
+    CONSTRAINT fk_messages_chat FOREIGN KEY (chat_id) REFERENCES chats (id),
+    CONSTRAINT fk_messages_sender FOREIGN KEY (sender_id) REFERENCES users (id)
+);
+
+CREATE TABLE message_reactions (
+    message_id    BIGINT       NOT NULL,
+    user_id       VARCHAR(255) NOT NULL,
+    reaction_type VARCHAR(255) NOT NULL CHECK (reaction_type IN ('THUMBUP', 'LOVE', 'CRYING', 'SURPRISED')),
+    created_at    TIMESTAMP(6),
+    updated_at    TIMESTAMP(6),
+    CONSTRAINT uk_message_reactions_message_user UNIQUE (message_id, user_id),
+    CONSTRAINT fk_message_reactions_message FOREIGN KEY (message_id) REFERENCES messages (id),
+    CONSTRAINT fk_message_reactions_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE message_delivery_status (
+    message_id   BIGINT       NOT NULL,
+    user_id      VARCHAR(255) NOT NULL,
+    status       VARCHAR(255) CHECK (status IN ('SENT', 'DELIVERED', 'READ')),
+    delivered_at TIMESTAMP(6),
+    read_at      TIMESTAMP(6),
+    CONSTRAINT fk_message_delivery_status_message FOREIGN KEY (message_id) REFERENCES messages (id),
+    CONSTRAINT fk_message_delivery_status_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
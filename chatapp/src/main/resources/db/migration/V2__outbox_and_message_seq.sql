@@ -0,0 +1,15 @@
+-- Objects introduced with the transactional outbox and per-chat sequence numbers.
+-- IF NOT EXISTS because databases that ran those builds with ddl-auto may already have them.
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    topic      VARCHAR(255) NOT NULL,
+    event_key  VARCHAR(255),
+    payload    TEXT         NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_outbox_events PRIMARY KEY (id)
+);
+
+ALTER TABLE chats ADD COLUMN IF NOT EXISTS last_message_seq BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE messages ADD COLUMN IF NOT EXISTS seq BIGINT;
@@ -0,0 +1,15 @@
+-- Number every existing message per chat in creation order, then make seq mandatory.
+-- Negated first so renumbering never collides with a unique (chat_id, seq) index that may already exist.
+
+UPDATE messages m
+SET seq = -n.rn
+FROM (SELECT id, row_number() OVER (PARTITION BY chat_id ORDER BY created_at, id) AS rn
+      FROM messages) n
+WHERE m.id = n.id;
+
+UPDATE messages SET seq = -seq;
+
+UPDATE chats c
+SET last_message_seq = COALESCE((SELECT max(m.seq) FROM messages m WHERE m.chat_id = c.id), 0);
+
+ALTER TABLE messages ALTER COLUMN seq SET NOT NULL;
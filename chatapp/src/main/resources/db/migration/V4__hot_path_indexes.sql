@@ -0,0 +1,14 @@
+-- Indexes for the queries executed on every request or message.
+
+-- Keyset history (ORDER BY seq) and sequence uniqueness
+CREATE UNIQUE INDEX IF NOT EXISTS uk_messages_chat_seq ON messages (chat_id, seq);
+
+-- Jump-to-date history seek
+CREATE INDEX IF NOT EXISTS idx_messages_chat_created ON messages (chat_id, created_at, id);
+
+-- "Chats of user" lookups only ever consider active memberships
+CREATE INDEX IF NOT EXISTS idx_chat_participants_active_user ON chat_participants (user_id, chat_id) WHERE left_at IS NULL;
+
+-- Delivery status lookups and updates per (message, recipient)
+CREATE INDEX IF NOT EXISTS idx_message_delivery_status_message_user ON message_delivery_status (message_id, user_id);
+
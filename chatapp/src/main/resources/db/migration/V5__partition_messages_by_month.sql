@@ -0,0 +1,144 @@
+-- Monthly range partitioning of messages and of the per-message delivery and reaction tables.
+-- Delivery and reaction rows carry their message's created_at so they land in the aligned month.
+-- They keep no foreign key to messages, which keeps DETACH PARTITION an O(1) catalog operation.
+
+ALTER TABLE messages RENAME TO messages_old;
+ALTER TABLE message_delivery_status RENAME TO message_delivery_status_old;
+ALTER TABLE message_reactions RENAME TO message_reactions_old;
+
+CREATE TABLE messages (
+    id            BIGINT       NOT NULL,
+    created_at    TIMESTAMP(6) NOT NULL,
+    last_modified TIMESTAMP(6),
+    chat_id       BIGINT       NOT NULL,
+    sender_id     VARCHAR(255) NOT NULL,
+    seq           BIGINT       NOT NULL,
+    type          VARCHAR(255) NOT NULL CHECK (type IN ('TEXT', 'IMAGE', 'VIDEO', 'FILE', 'MULTIMODAL')),
+    content       TEXT,
+    file_name     VARCHAR(255),
+    file_path     VARCHAR(255),
+    file_url      VARCHAR(255),
+    file_size     BIGINT,
+    mime_type     VARCHAR(255),
+    status        VARCHAR(255) CHECK (status IN ('SENT', 'DELIVERED', 'READ')),
+    is_deleted    BOOLEAN,
+    deleted_at    TIMESTAMP(6)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE message_delivery_status (
+    message_id         BIGINT       NOT NULL,
+    message_created_at TIMESTAMP(6) NOT NULL,
+    user_id            VARCHAR(255) NOT NULL,
+    status             VARCHAR(255) CHECK (status IN ('SENT', 'DELIVERED', 'READ')),
+    delivered_at       TIMESTAMP(6),
+    read_at            TIMESTAMP(6)
+) PARTITION BY RANGE (message_created_at);
+
+CREATE TABLE message_reactions (
+    message_id         BIGINT       NOT NULL,
+    message_created_at TIMESTAMP(6) NOT NULL,
+    user_id            VARCHAR(255) NOT NULL,
+    reaction_type      VARCHAR(255) NOT NULL CHECK (reaction_type IN ('THUMBUP', 'LOVE', 'CRYING', 'SURPRISED')),
+    created_at         TIMESTAMP(6),
+    updated_at         TIMESTAMP(6)
+) PARTITION BY RANGE (message_created_at);
+
+-- Creates the month partitions of all three tables for every month in [p_from, p_to]. Idempotent.
+CREATE OR REPLACE FUNCTION create_message_partitions(p_from DATE, p_to DATE) RETURNS INTEGER AS $$
+DECLARE
+    parent         TEXT;
+    month_start    DATE := date_trunc('month', p_from)::DATE;
+    month_end      DATE;
+    partition_name TEXT;
+    created        INTEGER := 0;
+BEGIN
+    -- Serializes concurrent maintenance runs from several nodes
+    PERFORM pg_advisory_xact_lock(hashtext('message_partitions'));
+    WHILE month_start <= p_to LOOP
+        month_end := (month_start + INTERVAL '1 month')::DATE;
+        FOREACH parent IN ARRAY ARRAY['messages', 'message_delivery_status', 'message_reactions'] LOOP
+            partition_name := parent || '_' || to_char(month_start, '"y"YYYY"m"MM');
+            IF to_regclass(partition_name) IS NULL THEN
+                EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                               partition_name, parent, month_start, month_end);
+                created := created + 1;
+            END IF;
+        END LOOP;
+        month_start := month_end;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Detaches (without dropping) every month partition that ends on or before the month of p_before.
+-- Children are detached before messages so a month is never half attached.
+CREATE OR REPLACE FUNCTION detach_message_partitions_before(p_before DATE) RETURNS INTEGER AS $$
+DECLARE
+    parent   TEXT;
+    part     RECORD;
+    detached INTEGER := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('message_partitions'));
+    FOREACH parent IN ARRAY ARRAY['message_delivery_status', 'message_reactions', 'messages'] LOOP
+        FOR part IN
+            SELECT c.relname
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            JOIN pg_class p ON p.oid = i.inhparent
+            WHERE p.relname = parent
+              AND c.relname ~ ('^' || parent || '_y[0-9]{4}m[0-9]{2}$')
+              AND to_date(right(c.relname, 8), '"y"YYYY"m"MM') < date_trunc('month', p_before)
+        LOOP
+            EXECUTE format('ALTER TABLE %I DETACH PARTITION %I', parent, part.relname);
+            detached := detached + 1;
+        END LOOP;
+    END LOOP;
+    RETURN detached;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT create_message_partitions(
+        LEAST(COALESCE((SELECT min(created_at) FROM messages_old), now()), now())::DATE,
+        (now() + INTERVAL '3 months')::DATE);
+
+INSERT INTO messages (id, created_at, last_modified, chat_id, sender_id, seq, type, content, file_name, file_path,
+                      file_url, file_size, mime_type, status, is_deleted, deleted_at)
+SELECT id, created_at, last_modified, chat_id, sender_id, seq, type, content, file_name, file_path,
+       file_url, file_size, mime_type, status, is_deleted, deleted_at
+FROM messages_old;
+
+INSERT INTO message_delivery_status (message_id, message_created_at, user_id, status, delivered_at, read_at)
+SELECT d.message_id, m.created_at, d.user_id, d.status, d.delivered_at, d.read_at
+FROM message_delivery_status_old d
+JOIN messages_old m ON m.id = d.message_id;
+
+INSERT INTO message_reactions (message_id, message_created_at, user_id, reaction_type, created_at, updated_at)
+SELECT r.message_id, m.created_at, r.user_id, r.reaction_type, r.created_at, r.updated_at
+FROM message_reactions_old r
+JOIN messages_old m ON m.id = r.message_id;
+
+CREATE SEQUENCE message_id_seq;
+SELECT setval('message_id_seq', COALESCE((SELECT max(id) FROM messages_old), 0) + 1, false);
+
+DROP TABLE message_delivery_status_old;
+DROP TABLE message_reactions_old;
+DROP TABLE messages_old;
+
+ALTER TABLE messages ALTER COLUMN id SET DEFAULT nextval('message_id_seq');
+ALTER SEQUENCE message_id_seq OWNED BY messages.id;
+
+-- Primary and unique keys on a partitioned table must contain the partition key
+ALTER TABLE messages ADD CONSTRAINT pk_messages PRIMARY KEY (id, created_at);
+ALTER TABLE messages ADD CONSTRAINT fk_messages_chat FOREIGN KEY (chat_id) REFERENCES chats (id);
+ALTER TABLE messages ADD CONSTRAINT fk_messages_sender FOREIGN KEY (sender_id) REFERENCES users (id);
+CREATE INDEX idx_messages_chat_seq ON messages (chat_id, seq);
+CREATE INDEX idx_messages_chat_created ON messages (chat_id, created_at, id);
+
+ALTER TABLE message_delivery_status
+    ADD CONSTRAINT fk_message_delivery_status_user FOREIGN KEY (user_id) REFERENCES users (id);
+CREATE INDEX idx_message_delivery_status_message_user ON message_delivery_status (message_id, user_id);
+
+ALTER TABLE message_reactions
+    ADD CONSTRAINT uk_message_reactions_message_user UNIQUE (message_id, user_id, message_created_at);
+ALTER TABLE message_reactions
+    ADD CONSTRAINT fk_message_reactions_user FOREIGN KEY (user_id) REFERENCES users (id);
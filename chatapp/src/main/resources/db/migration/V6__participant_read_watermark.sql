@@ -0,0 +1,13 @@
+-- Read state becomes a per-participant watermark: every message with seq <= last_read_seq is read.
+
+ALTER TABLE chat_participants ADD COLUMN last_read_seq BIGINT NOT NULL DEFAULT 0;
+
+-- Carry over existing receipts: the highest message each participant already marked READ
+UPDATE chat_participants p
+SET last_read_seq = r.max_seq
+FROM (SELECT m.chat_id, d.user_id, max(m.seq) AS max_seq
+      FROM message_delivery_status d
+      JOIN messages m ON m.id = d.message_id AND m.created_at = d.message_created_at
+      WHERE d.status = 'READ'
+      GROUP BY m.chat_id, d.user_id) r
+WHERE p.chat_id = r.chat_id AND p.user_id = r.user_id;
@@ -0,0 +1,12 @@
+-- Unread messages per participant, maintained on send and on read instead of counted per request.
+
+ALTER TABLE chat_participants ADD COLUMN unread_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE chat_participants p
+SET unread_count = u.unread
+FROM (SELECT p2.chat_id, p2.user_id, count(m.id) AS unread
+      FROM chat_participants p2
+      JOIN messages m ON m.chat_id = p2.chat_id AND m.seq > p2.last_read_seq AND m.sender_id <> p2.user_id
+      WHERE p2.left_at IS NULL
+      GROUP BY p2.chat_id, p2.user_id) u
+WHERE p.chat_id = u.chat_id AND p.user_id = u.user_id;
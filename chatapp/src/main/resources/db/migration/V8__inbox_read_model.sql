@@ -0,0 +1,30 @@
+-- Inbox read model: the latest message of each chat is denormalized onto the chat, and its time onto every
+-- membership so that a user's inbox is one index range scan in activity order.
+
+ALTER TABLE chats
+    ADD COLUMN last_message_id        BIGINT,
+    ADD COLUMN last_message_preview   VARCHAR(255),
+    ADD COLUMN last_message_sender_id VARCHAR(255),
+    ADD COLUMN last_message_type      VARCHAR(255),
+    ADD COLUMN last_activity_at       TIMESTAMP(6) NOT NULL DEFAULT now();
+
+UPDATE chats SET last_activity_at = created_at;
+
+UPDATE chats c
+SET last_message_id        = m.id,
+    last_message_preview   = left(coalesce(m.content, m.file_name), 100),
+    last_message_sender_id = m.sender_id,
+    last_message_type      = m.type,
+    last_activity_at       = m.created_at
+FROM messages m
+WHERE m.chat_id = c.id AND m.seq = c.last_message_seq;
+
+ALTER TABLE chat_participants ADD COLUMN last_activity_at TIMESTAMP(6) NOT NULL DEFAULT now();
+
+UPDATE chat_participants p
+SET last_activity_at = c.last_activity_at
+FROM chats c
+WHERE c.id = p.chat_id;
+
+CREATE INDEX idx_chat_participants_user_activity
+    ON chat_participants (user_id, last_activity_at DESC, chat_id DESC) WHERE left_at IS NULL;
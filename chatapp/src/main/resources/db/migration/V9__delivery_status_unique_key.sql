@@ -0,0 +1,15 @@
+-- One delivery row per (message, recipient), so batched consumers can upsert with ON CONFLICT.
+-- Unique keys on a partitioned table must contain the partition key, which is fixed per message anyway.
+
+DELETE FROM message_delivery_status a
+USING message_delivery_status b
+WHERE a.message_id = b.message_id
+  AND a.user_id = b.user_id
+  AND a.message_created_at = b.message_created_at
+  AND a.tableoid = b.tableoid
+  AND a.ctid < b.ctid;
+
+DROP INDEX IF EXISTS idx_message_delivery_status_message_user;
+
+ALTER TABLE message_delivery_status
+    ADD CONSTRAINT uk_message_delivery_status_message_user UNIQUE (message_id, user_id, message_created_at);
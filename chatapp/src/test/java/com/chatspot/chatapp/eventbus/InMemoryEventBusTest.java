@@ -0,0 +1,113 @@
+package com.chatspot.chatapp.eventbus;
+
+import com.chatspot.chatapp.kafka.event.MessageEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InMemoryEventBusTest {
+
+    private final ChatEventHandler handler = mock(ChatEventHandler.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private InMemoryEventBus eventBus;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (eventBus != null) {
+            eventBus.stop();
+        }
+    }
+
+    @Test
+    void eventsOfOneChatAreHandledInPublishOrder() throws Exception {
+        int chats = 10;
+        int perChat = 500;
+        Map<Long, List<Long>> handled = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(chats * perChat);
+        doAnswer(invocation -> {
+            MessageEvent event = invocation.getArgument(0);
+            handled.computeIfAbsent(event.getChatId(), key -> Collections.synchronizedList(new ArrayList<>())).add(event.getSeq());
+            done.countDown();
+            return null;
+        }).when(handler).handleMessage(any());
+        eventBus = start(4, 10_000, 1_000);
+
+        for (long seq = 1; seq <= perChat; seq++) {
+            for (long chatId = 1; chatId <= chats; chatId++) {
+                eventBus.publish("chat-messages", Long.toString(chatId), message(chatId, seq));
+            }
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (long chatId = 1; chatId <= chats; chatId++) {
+            List<Long> expected = new ArrayList<>();
+            for (long seq = 1; seq <= perChat; seq++) {
+                expected.add(seq);
+            }
+            assertEquals(expected, handled.get(chatId));
+        }
+        assertEquals(0, meterRegistry.find("chatapp.eventbus.rejected").counters().size());
+    }
+
+    @Test
+    void eventIsDroppedAndCountedWhenTheQueueStaysFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> handled = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            MessageEvent event = invocation.getArgument(0);
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            handled.add(event.getSeq());
+            return null;
+        }).when(handler).handleMessage(any());
+        eventBus = start(1, 1, 20);
+
+        eventBus.publish("chat-messages", "1", message(1L, 1));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        // The worker is busy with the first event: the second fills the queue, the third finds no room in time
+        eventBus.publish("chat-messages", "1", message(1L, 2));
+        long start = System.nanoTime();
+        eventBus.publish("chat-messages", "1", message(1L, 3));
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        release.countDown();
+        eventBus.stop();
+
+        assertTrue(waitedMs >= 20, "publisher waited " + waitedMs + " ms");
+        assertEquals(List.of(1L, 2L), handled);
+        assertEquals(1.0, meterRegistry.get("chatapp.eventbus.rejected").tag("event", "MessageEvent").counter().count());
+    }
+
+    @SuppressWarnings("unchecked")
+    private InMemoryEventBus start(int workers, int queueCapacity, long offerTimeoutMs) {
+        ObjectProvider<ChatEventHandler> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(handler);
+        InMemoryEventBus bus = new InMemoryEventBus(provider, meterRegistry, workers, queueCapacity);
+        ReflectionTestUtils.setField(bus, "offerTimeoutMs", offerTimeoutMs);
+        bus.start();
+        return bus;
+    }
+
+    private static MessageEvent message(Long chatId, long seq) {
+        MessageEvent event = new MessageEvent();
+        event.setChatId(chatId);
+        event.setSeq(seq);
+        return event;
+    }
+}
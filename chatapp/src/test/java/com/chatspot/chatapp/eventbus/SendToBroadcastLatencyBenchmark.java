@@ -0,0 +1,109 @@
+package com.chatspot.chatapp.eventbus;
+
+import com.chatspot.chatapp.kafka.event.MessageEvent;
+import com.chatspot.chatapp.service.MessageService;
+import com.chatspot.chatapp.support.TestChats;
+import com.chatspot.chatapp.websocket.WebSocketMessageBroadcaster;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Latency from calling sendMessage until the broadcaster is handed the message, in in-memory mode: the send
+ * transaction, the hand-off to an event bus worker after commit, delivery marking and routing. Reported from
+ * the call and from its return, by group size. Run with {@code mvn test -Pbenchmark} against the database of
+ * application.yml.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "application.event-bus.mode=in-memory")
+class SendToBroadcastLatencyBenchmark {
+
+    private static final int[] GROUP_SIZES = {2, 50, 500};
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private WebSocketMessageBroadcaster broadcaster;
+
+    private final Map<Long, Long> broadcastAt = new ConcurrentHashMap<>();
+    private volatile CountDownLatch broadcasts;
+    private TestChats testChats;
+
+    @BeforeEach
+    void setUp() {
+        testChats = new TestChats(jdbcTemplate);
+        doAnswer(invocation -> {
+            broadcastAt.put(invocation.<MessageEvent>getArgument(0).getMessageId(), System.nanoTime());
+            broadcasts.countDown();
+            return null;
+        }).when(broadcaster).broadcastNewMessage(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        testChats.deleteAll();
+    }
+
+    @Test
+    void sendToBroadcastLatencyByGroupSize() throws Exception {
+        System.out.printf("%n%10s %16s %16s %18s %18s%n", "members", "p50 ms from call", "p99 ms from call",
+                "p50 ms from return", "p99 ms from return");
+        for (int size : GROUP_SIZES) {
+            List<String> members = testChats.createUsers(size);
+            Long chatId = testChats.createGroupChat(members);
+            String senderId = members.get(0);
+            send(chatId, senderId, WARMUP, new long[WARMUP], new long[WARMUP]);
+
+            long[] fromCall = new long[ITERATIONS];
+            long[] fromReturn = new long[ITERATIONS];
+            send(chatId, senderId, ITERATIONS, fromCall, fromReturn);
+            Arrays.sort(fromCall);
+            Arrays.sort(fromReturn);
+            System.out.printf("%10d %16.2f %16.2f %18.2f %18.2f%n", size,
+                    percentile(fromCall, 0.5), percentile(fromCall, 0.99),
+                    percentile(fromReturn, 0.5), percentile(fromReturn, 0.99));
+        }
+    }
+
+    // One send at a time, each waiting for its broadcast, so the queue never holds more than one event
+    private void send(Long chatId, String senderId, int count, long[] fromCall, long[] fromReturn) throws Exception {
+        for (int i = 0; i < count; i++) {
+            broadcasts = new CountDownLatch(1);
+            long called = System.nanoTime();
+            Long messageId = messageService.sendMessage(chatId, senderId, "message " + i, null).getId();
+            long returned = System.nanoTime();
+            if (!broadcasts.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Message " + messageId + " was never broadcast");
+            }
+            long broadcast = broadcastAt.remove(messageId);
+            fromCall[i] = broadcast - called;
+            // Negative when a worker broadcast before the sending thread got back from sendMessage
+            fromReturn[i] = Math.max(0, broadcast - returned);
+        }
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        return sortedNanos[(int) Math.ceil(sortedNanos.length * percentile) - 1] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,217 @@
+package com.chatspot.chatapp.kafka;
+
+import com.chatspot.chatapp.entity.message.DeliveryStatus;
+import com.chatspot.chatapp.entity.message.Message;
+import com.chatspot.chatapp.entity.message.MessageDeliveryInfo;
+import com.chatspot.chatapp.entity.user.User;
+import com.chatspot.chatapp.kafka.event.DeliveryStatusEvent;
+import com.chatspot.chatapp.repository.MessageRepository;
+import com.chatspot.chatapp.repository.UserRepository;
+import com.chatspot.chatapp.service.MessageService;
+import com.chatspot.chatapp.support.TestChats;
+import com.chatspot.chatapp.websocket.WebSocketMessageBroadcaster;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Events/sec through the delivery-status listener: the batch path (one dedupe pass, one coalesced routing query
+ * per poll) against the per-record listener it replaced, which loaded the message with its delivery rows and the
+ * user, then saved the message, for every record. Both read the same mix of events from their own topic on an
+ * embedded broker, for messages of their own whose delivery rows exist: half per-message DELIVERED states, half
+ * read receipts that repeat per (chat, user) and coalesce within a poll. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@EmbeddedKafka(partitions = 3, topics = {DeliveryStatusThroughputBenchmark.BATCH_TOPIC, DeliveryStatusThroughputBenchmark.PER_RECORD_TOPIC})
+@SpringBootTest(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.producer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.consumer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.admin.properties.bootstrap.servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.listener.auto-startup=false",
+        "application.kafka.binary-topics=" + DeliveryStatusThroughputBenchmark.BATCH_TOPIC + "," + DeliveryStatusThroughputBenchmark.PER_RECORD_TOPIC
+})
+class DeliveryStatusThroughputBenchmark {
+
+    static final String BATCH_TOPIC = "delivery-status";
+    static final String PER_RECORD_TOPIC = "delivery-status-per-record";
+    private static final String PER_RECORD_GROUP = "benchmark-per-record";
+    private static final int EVENTS = 50_000;
+    private static final int CHATS = 20;
+    private static final int USERS_PER_CHAT = 10;
+    private static final int MESSAGES_PER_CHAT = 25;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Autowired
+    @Qualifier("kafkaListenerContainerFactory")
+    private ConcurrentKafkaListenerContainerFactory<Object, Object> recordContainerFactory;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WebSocketMessageBroadcaster webSocketBroadcaster;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    private TestChats testChats;
+
+    @AfterEach
+    void tearDown() {
+        testChats.deleteAll();
+    }
+
+    @Test
+    void eventsPerSecond() throws Exception {
+        testChats = new TestChats(jdbcTemplate);
+        publish(PER_RECORD_TOPIC, createChats(testChats));
+        publish(BATCH_TOPIC, createChats(testChats));
+
+        ConcurrentMessageListenerContainer<Object, Object> perRecord = recordContainerFactory.createContainer(PER_RECORD_TOPIC);
+        perRecord.getContainerProperties().setGroupId(PER_RECORD_GROUP);
+        perRecord.getContainerProperties().setMessageListener(
+                (MessageListener<String, DeliveryStatusEvent>) record -> consumePerRecord(record.value()));
+        double perRecordRate = consume(perRecord, PER_RECORD_GROUP, PER_RECORD_TOPIC);
+
+        MessageListenerContainer batch = listenerRegistry.getListenerContainers().stream()
+                .filter(container -> Arrays.asList(container.getContainerProperties().getTopics()).contains(BATCH_TOPIC))
+                .findFirst()
+                .orElseThrow();
+        double batchRate = consume(batch, "chatapp-group", BATCH_TOPIC);
+
+        System.out.printf("%n%12s %14s%n", "path", "events/sec");
+        System.out.printf("%12s %14.0f%n", "per-record", perRecordRate);
+        System.out.printf("%12s %14.0f%n", "batch", batchRate);
+    }
+
+    // The listener as it was before it took batches. Its save rewrote every delivery row of the message; with
+    // today's row-level mapping only the changed row is written, so this understates the per-record cost.
+    private void consumePerRecord(DeliveryStatusEvent event) {
+        if (event.getUpToSeq() != null) {
+            webSocketBroadcaster.broadcastReadReceipt(event);
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            Message message = findByIdWithDeliveryStatus(event.getMessageId());
+            User user = userRepository.findById(event.getUserId())
+                    .orElseThrow(() -> new EntityNotFoundException("User not found"));
+            for (MessageDeliveryInfo info : message.getDeliveryStatus()) {
+                if (info.getUser().getId().equals(user.getId())) {
+                    info.setStatus(event.getStatus());
+                }
+            }
+            messageRepository.save(message);
+        });
+        webSocketBroadcaster.broadcastDeliveryStatus(event);
+    }
+
+    private Message findByIdWithDeliveryStatus(Long messageId) {
+        Message message = entityManager.createQuery(
+                        "SELECT m FROM Message m LEFT JOIN FETCH m.deliveryStatus WHERE m.id = :messageId", Message.class)
+                .setParameter("messageId", messageId)
+                .getSingleResult();
+        Hibernate.initialize(message.getReactions());
+        return message;
+    }
+
+    // Every message is sent by the chat's first member, so the other members have a SENT row for it
+    private List<Message> createChats(TestChats testChats) throws Exception {
+        List<Message> messages = new ArrayList<>(CHATS * MESSAGES_PER_CHAT);
+        for (int c = 0; c < CHATS; c++) {
+            List<String> members = testChats.createUsers(USERS_PER_CHAT);
+            Long chatId = testChats.createGroupChat(members);
+            for (int m = 0; m < MESSAGES_PER_CHAT; m++) {
+                messages.add(messageService.sendMessage(chatId, members.get(0), "benchmark", null));
+            }
+        }
+        return messages;
+    }
+
+    private void publish(String topic, List<Message> messages) {
+        for (int i = 0; i < EVENTS; i++) {
+            Message message = messages.get((i / 2) % messages.size());
+            List<MessageDeliveryInfo> recipients = message.getDeliveryStatus();
+            DeliveryStatusEvent event = new DeliveryStatusEvent();
+            event.setChatId(message.getChat().getId());
+            event.setUserId(recipients.get((i / 2 / messages.size()) % recipients.size()).getUser().getId());
+            if (i % 2 == 0) {
+                event.setMessageId(message.getId());
+                event.setStatus(DeliveryStatus.DELIVERED);
+                kafkaTemplate.send(topic, event.getMessageId().toString(), event);
+            } else {
+                event.setStatus(DeliveryStatus.READ);
+                event.setUpToSeq(message.getSeq());
+                kafkaTemplate.send(topic, event.getChatId().toString(), event);
+            }
+        }
+        kafkaTemplate.flush();
+    }
+
+    // Time from starting the container until its group has committed every record of the topic
+    private double consume(MessageListenerContainer container, String groupId, String topic) throws Exception {
+        try (AdminClient admin = AdminClient.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()))) {
+            long start = System.nanoTime();
+            container.start();
+            while (committed(admin, groupId, topic) < EVENTS) {
+                Thread.sleep(5);
+            }
+            long nanos = System.nanoTime() - start;
+            container.stop();
+            return EVENTS / (nanos / 1_000_000_000.0);
+        }
+    }
+
+    private static long committed(AdminClient admin, String groupId, String topic) throws Exception {
+        Map<TopicPartition, OffsetAndMetadata> offsets = admin.listConsumerGroupOffsets(groupId).partitionsToOffsetAndMetadata().get();
+        return offsets.entrySet().stream()
+                .filter(entry -> entry.getKey().topic().equals(topic) && entry.getValue() != null)
+                .mapToLong(entry -> entry.getValue().offset())
+                .sum();
+    }
+}
@@ -0,0 +1,139 @@
+package com.chatspot.chatapp.kafka;
+
+import com.chatspot.chatapp.kafka.event.DeliveryStatusEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EventDeduplicatorTest {
+
+    private static final String TOPIC = "delivery-status";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+
+    private EventDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        deduplicator = new EventDeduplicator(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(deduplicator, "consumerGroup", "chatapp-group");
+        ReflectionTestUtils.setField(deduplicator, "windowMs", 600_000L);
+        ReflectionTestUtils.setField(deduplicator, "maxEntriesPerPartition", 3);
+    }
+
+    @Test
+    void isDuplicateOnlyOnceTheEventWasProcessed() {
+        ConsumerRecord<String, DeliveryStatusEvent> record = record(10, UUID.randomUUID().toString());
+
+        assertFalse(deduplicator.isDuplicate(record));
+        deduplicator.markProcessed(record);
+
+        assertTrue(deduplicator.isDuplicate(record));
+        // The same event produced again lands at another offset
+        assertTrue(deduplicator.isDuplicate(record(11, record.value().getEventId())));
+    }
+
+    @Test
+    void lowerOffsetsOfNewEventsAreNotDuplicates() {
+        deduplicator.markProcessed(record(50_000, UUID.randomUUID().toString()));
+
+        // A recreated topic or a reset group starts again from low offsets
+        assertFalse(deduplicator.isDuplicate(record(0, UUID.randomUUID().toString())));
+    }
+
+    @Test
+    void filterNewDropsProcessedEventsAndRepeatsWithinTheBatch() {
+        String processed = UUID.randomUUID().toString();
+        String repeated = UUID.randomUUID().toString();
+        String single = UUID.randomUUID().toString();
+        deduplicator.markProcessed(record(1, processed));
+
+        List<ConsumerRecord<String, DeliveryStatusEvent>> fresh = deduplicator.filterNew(List.of(
+                record(2, processed), record(3, repeated), record(4, single), record(5, repeated)));
+
+        assertEquals(List.of(3L, 4L), fresh.stream().map(ConsumerRecord::offset).toList());
+    }
+
+    @Test
+    void markProcessedKeepsTheNewestIdsWhenTheWindowIsFull() {
+        List<String> eventIds = List.of(UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        for (int i = 0; i < eventIds.size(); i++) {
+            deduplicator.markProcessed(record(i, eventIds.get(i)));
+        }
+
+        assertFalse(deduplicator.isDuplicate(record(10, eventIds.get(0))));
+        assertTrue(deduplicator.isDuplicate(record(11, eventIds.get(3))));
+    }
+
+    @Test
+    void markProcessedForgetsIdsOlderThanTheWindow() throws Exception {
+        ReflectionTestUtils.setField(deduplicator, "windowMs", 0L);
+        ConsumerRecord<String, DeliveryStatusEvent> record = record(1, UUID.randomUUID().toString());
+        deduplicator.markProcessed(record);
+        Thread.sleep(5);
+
+        assertFalse(deduplicator.isDuplicate(record));
+    }
+
+    @Test
+    void recordsBelowTheCommittedOffsetAtAssignmentAreDuplicates() {
+        deduplicator.onPartitionsAssigned(consumer("chatapp-group", 100L), List.of(PARTITION));
+
+        assertTrue(deduplicator.isDuplicate(record(99, UUID.randomUUID().toString())));
+        assertFalse(deduplicator.isDuplicate(record(100, UUID.randomUUID().toString())));
+    }
+
+    @Test
+    void revokingAPartitionDropsItsWindow() {
+        Consumer<?, ?> consumer = consumer("chatapp-group", 100L);
+        deduplicator.onPartitionsAssigned(consumer, List.of(PARTITION));
+        ConsumerRecord<String, DeliveryStatusEvent> record = record(100, UUID.randomUUID().toString());
+        deduplicator.markProcessed(record);
+
+        deduplicator.onPartitionsRevokedAfterCommit(consumer, List.of(PARTITION));
+
+        assertFalse(deduplicator.isDuplicate(record));
+        assertFalse(deduplicator.isDuplicate(record(0, UUID.randomUUID().toString())));
+    }
+
+    @Test
+    void partitionsOfOtherGroupsAreIgnored() {
+        ConsumerRecord<String, DeliveryStatusEvent> record = record(5, UUID.randomUUID().toString());
+        deduplicator.markProcessed(record);
+
+        Consumer<?, ?> nodeConsumer = consumer("chatapp-node-a", 100L);
+        deduplicator.onPartitionsAssigned(nodeConsumer, List.of(PARTITION));
+        deduplicator.onPartitionsRevokedAfterCommit(nodeConsumer, List.of(PARTITION));
+
+        assertTrue(deduplicator.isDuplicate(record));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<?, ?> consumer(String groupId, long committedOffset) {
+        Consumer<String, DeliveryStatusEvent> consumer = mock(Consumer.class);
+        when(consumer.groupMetadata()).thenReturn(new ConsumerGroupMetadata(groupId));
+        when(consumer.committed(anySet())).thenReturn(Map.of(PARTITION, new OffsetAndMetadata(committedOffset)));
+        return consumer;
+    }
+
+    private static ConsumerRecord<String, DeliveryStatusEvent> record(long offset, String eventId) {
+        DeliveryStatusEvent event = new DeliveryStatusEvent();
+        event.setEventId(eventId);
+        return new ConsumerRecord<>(TOPIC, PARTITION.partition(), offset, "1", event);
+    }
+}
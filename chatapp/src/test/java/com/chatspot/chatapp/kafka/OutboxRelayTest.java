@@ -0,0 +1,127 @@
+package com.chatspot.chatapp.kafka;
+
+import com.chatspot.chatapp.entity.outbox.OutboxEvent;
+import com.chatspot.chatapp.kafka.event.ChatEvent;
+import com.chatspot.chatapp.kafka.event.MessageEvent;
+import com.chatspot.chatapp.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Acknowledgements arrive on another thread a few ms after the send, as they do from the producer's I/O thread
+class OutboxRelayTest {
+
+    private final OutboxEventRepository repository = mock(OutboxEventRepository.class);
+    private final KafkaProducerService producer = mock(KafkaProducerService.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final OutboxRelay relay = new OutboxRelay(repository, producer, objectMapper);
+
+    private final List<Long> sent = Collections.synchronizedList(new ArrayList<>());
+    // Created when the event is sent
+    private final Map<Long, Supplier<CompletableFuture<SendResult<String, Object>>>> acknowledgements = new HashMap<>();
+    private final Map<String, Long> idsByEventId = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(relay, "batchSize", 500);
+        ReflectionTestUtils.setField(relay, "sendTimeoutMs", 5_000L);
+        ReflectionTestUtils.setField(relay, "maxBlockMs", 1_000L);
+        when(producer.send(anyString(), anyString(), any(ChatEvent.class))).thenAnswer(invocation -> {
+            Long id = idsByEventId.get(invocation.<ChatEvent>getArgument(2).getEventId());
+            sent.add(id);
+            return acknowledgements.getOrDefault(id, () -> acknowledgeLater(null)).get();
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void eventOfAKeyIsSentOnlyOnceTheOneBeforeItIsAcknowledged() throws Exception {
+        claim(event(1, "chat-1"), event(2, "chat-1"), event(3, "chat-2"));
+        CompletableFuture<SendResult<String, Object>> first = acknowledgeLater(null);
+        acknowledgements.put(1L, () -> first);
+        acknowledgements.put(2L, () -> {
+            // Sent only after the first event of its key was acknowledged
+            assertTrue(first.isDone());
+            return acknowledgeLater(null);
+        });
+
+        relay.relay();
+
+        assertEquals(List.of(1L, 3L, 2L), sent);
+        ArgumentCaptor<List<Long>> deleted = ArgumentCaptor.forClass(List.class);
+        verify(repository).deleteByIdIn(deleted.capture());
+        assertEquals(Set.of(1L, 2L, 3L), Set.copyOf(deleted.getValue()));
+        verify(repository, never()).releaseClaim(any());
+    }
+
+    @Test
+    void failedEventHoldsBackTheRestOfItsKeyOnly() throws Exception {
+        claim(event(1, "chat-1"), event(2, "chat-1"), event(3, "chat-2"), event(4, "chat-2"));
+        acknowledgements.put(1L, () -> acknowledgeLater(new TimeoutException("Expiring 1 record(s)")));
+
+        relay.relay();
+
+        assertEquals(List.of(1L, 3L, 4L), sent);
+        verify(repository).deleteByIdIn(List.of(3L, 4L));
+        verify(repository).releaseClaim(List.of(1L, 2L));
+    }
+
+    @Test
+    void sendThatCannotReachTheProducerEndsTheBatch() throws Exception {
+        claim(event(1, "chat-1"), event(2, "chat-2"), event(3, "chat-3"));
+        acknowledgements.put(2L, () -> CompletableFuture.failedFuture(new TimeoutException("Topic not present in metadata after 1000 ms")));
+
+        relay.relay();
+
+        assertEquals(List.of(1L, 2L), sent);
+        verify(repository).deleteByIdIn(List.of(1L));
+        verify(repository).releaseClaim(List.of(2L, 3L));
+    }
+
+    private void claim(OutboxEvent... events) {
+        when(repository.claimNextBatch(anyInt(), anyDouble())).thenReturn(List.of(events));
+    }
+
+    private OutboxEvent event(long id, String key) throws Exception {
+        MessageEvent event = new MessageEvent();
+        event.setMessageId(id);
+        event.setChatId(1L);
+        idsByEventId.put(event.getEventId(), id);
+        OutboxEvent outboxEvent = new OutboxEvent("chat-messages", key, objectMapper.writeValueAsString(event));
+        outboxEvent.setId(id);
+        return outboxEvent;
+    }
+
+    private static CompletableFuture<SendResult<String, Object>> acknowledgeLater(RuntimeException failure) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (failure != null) {
+                throw failure;
+            }
+            return null;
+        }, CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,128 @@
+package com.chatspot.chatapp.kafka.serialization;
+
+import com.chatspot.chatapp.entity.message.DeliveryStatus;
+import com.chatspot.chatapp.entity.message.MessageType;
+import com.chatspot.chatapp.entity.message.ReactionType;
+import com.chatspot.chatapp.kafka.event.DeliveryStatusEvent;
+import com.chatspot.chatapp.kafka.event.MessageEvent;
+import com.chatspot.chatapp.kafka.event.PresenceEvent;
+import com.chatspot.chatapp.kafka.event.ReactionEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatEventBinaryCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void messageEventRoundTripsAndIsSmallerThanJson() throws Exception {
+        MessageEvent event = new MessageEvent();
+        event.setMessageId(1_234_567L);
+        event.setChatId(42L);
+        event.setSeq(9_001L);
+        event.setCreatedAt(LocalDateTime.of(2025, 3, 14, 15, 9, 26, 535_897_932));
+        event.setSenderId("3f2c7a1e-8d4b-4c55-9a61-0e7b2d9c4f10");
+        event.setContent("héllo 👋");
+        event.setMessageType(MessageType.TEXT);
+        event.setRecipients(List.of("a1b2c3d4-0000-4000-8000-000000000001", "a1b2c3d4-0000-4000-8000-000000000002"));
+
+        byte[] encoded = ChatEventBinaryCodec.encode(event);
+        MessageEvent decoded = (MessageEvent) ChatEventBinaryCodec.decode(encoded);
+
+        assertEquals(event.getEventId(), decoded.getEventId());
+        assertEquals("MESSAGE", decoded.getEventType());
+        assertEquals(event.getTimestamp(), decoded.getTimestamp());
+        assertEquals(event.getMessageId(), decoded.getMessageId());
+        assertEquals(event.getChatId(), decoded.getChatId());
+        assertEquals(event.getSeq(), decoded.getSeq());
+        assertEquals(event.getCreatedAt(), decoded.getCreatedAt());
+        assertEquals(event.getSenderId(), decoded.getSenderId());
+        assertEquals(event.getContent(), decoded.getContent());
+        assertEquals(event.getMessageType(), decoded.getMessageType());
+        assertEquals(event.getRecipients(), decoded.getRecipients());
+        assertNull(decoded.getReplyToMessageId());
+
+        assertTrue(encoded.length < objectMapper.writeValueAsBytes(event).length / 2);
+    }
+
+    @Test
+    void deliveryStatusEventRoundTripsNullsAndExtremes() {
+        DeliveryStatusEvent event = new DeliveryStatusEvent();
+        event.setChatId(-5L);
+        event.setUpToSeq(Long.MAX_VALUE);
+        event.setUserIds(List.of());
+        event.setStatus(DeliveryStatus.READ);
+
+        DeliveryStatusEvent decoded = (DeliveryStatusEvent) ChatEventBinaryCodec.decode(ChatEventBinaryCodec.encode(event));
+
+        assertNull(decoded.getMessageId());
+        assertNull(decoded.getUserId());
+        assertEquals(-5L, decoded.getChatId());
+        assertEquals(Long.MAX_VALUE, decoded.getUpToSeq());
+        assertEquals(List.of(), decoded.getUserIds());
+        assertEquals(DeliveryStatus.READ, decoded.getStatus());
+    }
+
+    @Test
+    void reactionEventRoundTripsAndKeepsNonUuidEventIds() {
+        ReactionEvent event = new ReactionEvent();
+        event.setEventId("legacy-id");
+        event.setMessageId(0L);
+        event.setChatId(7L);
+        event.setUserId("user");
+        event.setReactionType(ReactionType.SURPRISED);
+        event.setRemoved(true);
+
+        ReactionEvent decoded = (ReactionEvent) ChatEventBinaryCodec.decode(ChatEventBinaryCodec.encode(event));
+
+        assertEquals("legacy-id", decoded.getEventId());
+        assertEquals(0L, decoded.getMessageId());
+        assertEquals(7L, decoded.getChatId());
+        assertEquals("user", decoded.getUserId());
+        assertEquals(ReactionType.SURPRISED, decoded.getReactionType());
+        assertTrue(decoded.isRemoved());
+    }
+
+    @Test
+    void reactionEventWithoutTrailingChatIdStillDecodes() {
+        ReactionEvent event = new ReactionEvent();
+        event.setMessageId(3L);
+        event.setChatId(null);
+        byte[] encoded = ChatEventBinaryCodec.encode(event);
+        // Drop the trailing null chat id, as written before the field existed
+        byte[] legacy = Arrays.copyOf(encoded, encoded.length - 1);
+
+        ReactionEvent decoded = (ReactionEvent) ChatEventBinaryCodec.decode(legacy);
+
+        assertEquals(3L, decoded.getMessageId());
+        assertNull(decoded.getChatId());
+    }
+
+    @Test
+    void presenceEventRoundTrips() {
+        PresenceEvent event = new PresenceEvent();
+        event.setUserId("3f2c7a1e-8d4b-4c55-9a61-0e7b2d9c4f10");
+        event.setStatus("away");
+        event.setChangedAt(LocalDateTime.of(2025, 3, 14, 15, 9, 26, 535_000_000));
+
+        PresenceEvent decoded = (PresenceEvent) ChatEventBinaryCodec.decode(ChatEventBinaryCodec.encode(event));
+
+        assertEquals("PRESENCE", decoded.getEventType());
+        assertEquals(event.getUserId(), decoded.getUserId());
+        assertEquals("away", decoded.getStatus());
+        assertEquals(event.getChangedAt(), decoded.getChangedAt());
+        assertNull(decoded.getChatId());
+    }
+
+    @Test
+    void jsonPayloadsAreNotMistakenForBinary() throws Exception {
+        assertFalse(ChatEventBinaryCodec.isBinary(objectMapper.writeValueAsBytes(new ReactionEvent())));
+        assertThrows(IllegalArgumentException.class, () -> ChatEventBinaryCodec.decode("{}".getBytes()));
+    }
+}
@@ -0,0 +1,135 @@
+package com.chatspot.chatapp.kafka.serialization;
+
+import com.chatspot.chatapp.entity.message.DeliveryStatus;
+import com.chatspot.chatapp.entity.message.MessageType;
+import com.chatspot.chatapp.entity.message.ReactionType;
+import com.chatspot.chatapp.kafka.event.ChatEvent;
+import com.chatspot.chatapp.kafka.event.DeliveryStatusEvent;
+import com.chatspot.chatapp.kafka.event.MessageEvent;
+import com.chatspot.chatapp.kafka.event.ReactionEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.JacksonUtils;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bytes per event and encode/decode ns/op of ChatEventBinaryCodec against the JSON the Kafka producer writes
+ * otherwise (spring-kafka's JsonSerializer, read back through the same Jackson configuration). Each case runs
+ * warmup rounds first and reports the best of the measured rounds. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class ChatEventCodecBenchmark {
+
+    private static final int OPERATIONS = 200_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 5;
+
+    private final JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+    private final ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
+    // Folded into the output so the JIT cannot drop the work
+    private long sink;
+
+    @Test
+    void bytesAndNanosPerEvent() throws Exception {
+        Map<String, ChatEvent> events = new LinkedHashMap<>();
+        events.put("message, 2 recipients", message(2));
+        events.put("message, 50 recipients", message(50));
+        events.put("delivered receipt", deliveredReceipt());
+        events.put("read receipt", readReceipt());
+        events.put("reaction", reaction());
+
+        System.out.printf("%n%-24s %6s %6s %10s %10s %10s %10s%n", "event", "json B", "bin B",
+                "json enc", "bin enc", "json dec", "bin dec");
+        for (Map.Entry<String, ChatEvent> entry : events.entrySet()) {
+            ChatEvent event = entry.getValue();
+            byte[] json = jsonSerializer.serialize("chat-messages", event);
+            byte[] binary = ChatEventBinaryCodec.encode(event);
+            System.out.printf("%-24s %6d %6d %10.0f %10.0f %10.0f %10.0f%n", entry.getKey(), json.length, binary.length,
+                    nanosPerOp(e -> jsonSerializer.serialize("chat-messages", e).length, event),
+                    nanosPerOp(e -> ChatEventBinaryCodec.encode(e).length, event),
+                    nanosPerOp(data -> readJson(data).hashCode(), json),
+                    nanosPerOp(data -> ChatEventBinaryCodec.decode(data).hashCode(), binary));
+        }
+        System.out.printf("ns/op, best of %d rounds of %d operations (checksum %d)%n", ROUNDS, OPERATIONS, sink);
+    }
+
+    private <T> double nanosPerOp(ToIntFunction<T> operation, T input) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            run(operation, input);
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            best = Math.min(best, run(operation, input));
+        }
+        return best / (double) OPERATIONS;
+    }
+
+    private <T> long run(ToIntFunction<T> operation, T input) {
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            sink += operation.applyAsInt(input);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private ChatEvent readJson(byte[] data) {
+        try {
+            return objectMapper.readValue(data, ChatEvent.class);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MessageEvent message(int recipients) {
+        MessageEvent event = new MessageEvent();
+        event.setMessageId(1_234_567L);
+        event.setChatId(4_242L);
+        event.setSeq(9_001L);
+        event.setCreatedAt(LocalDateTime.now());
+        event.setSenderId(UUID.randomUUID().toString());
+        event.setContent("Are we still on for the design review at three? I moved it to the small room.");
+        event.setMessageType(MessageType.TEXT);
+        List<String> recipientIds = new ArrayList<>(recipients);
+        for (int i = 0; i < recipients; i++) {
+            recipientIds.add(UUID.randomUUID().toString());
+        }
+        event.setRecipients(recipientIds);
+        return event;
+    }
+
+    private static DeliveryStatusEvent deliveredReceipt() {
+        DeliveryStatusEvent event = new DeliveryStatusEvent();
+        event.setMessageId(1_234_567L);
+        event.setChatId(4_242L);
+        event.setUserIds(List.of(UUID.randomUUID().toString(), UUID.randomUUID().toString()));
+        event.setStatus(DeliveryStatus.DELIVERED);
+        return event;
+    }
+
+    private static DeliveryStatusEvent readReceipt() {
+        DeliveryStatusEvent event = new DeliveryStatusEvent();
+        event.setChatId(4_242L);
+        event.setUserId(UUID.randomUUID().toString());
+        event.setStatus(DeliveryStatus.READ);
+        event.setUpToSeq(9_001L);
+        return event;
+    }
+
+    private static ReactionEvent reaction() {
+        ReactionEvent event = new ReactionEvent();
+        event.setMessageId(1_234_567L);
+        event.setChatId(4_242L);
+        event.setUserId(UUID.randomUUID().toString());
+        event.setReactionType(ReactionType.THUMBUP);
+        return event;
+    }
+}
@@ -0,0 +1,127 @@
+package com.chatspot.chatapp.service;
+
+import com.chatspot.chatapp.common.dto.response.UserPresenceDto;
+import com.chatspot.chatapp.kafka.event.PresenceEvent;
+import com.chatspot.chatapp.repository.UserPresenceJdbcRepository;
+import com.chatspot.chatapp.websocket.NodeEventRouter;
+import com.chatspot.chatapp.websocket.NodeSessionRegistry;
+import com.chatspot.chatapp.websocket.WebSocketMessageBroadcaster;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two nodes sharing the node registry and the database. Alice's sessions are on node A, her contact Bob's on
+ * node B, and the router hands every announced presence event to both nodes like the node topics do.
+ */
+class ContactPresenceServiceTest {
+
+    private final NodeSessionRegistry nodeSessionRegistry = mock(NodeSessionRegistry.class);
+    private final UserPresenceJdbcRepository repository = mock(UserPresenceJdbcRepository.class);
+    private final NodeEventRouter router = mock(NodeEventRouter.class);
+    private final List<ContactPresenceService> nodes = new ArrayList<>();
+
+    private final WebSocketMessageBroadcaster broadcasterA = mock(WebSocketMessageBroadcaster.class);
+    private final WebSocketMessageBroadcaster broadcasterB = mock(WebSocketMessageBroadcaster.class);
+    private ContactPresenceService nodeA;
+    private ContactPresenceService nodeB;
+
+    @BeforeEach
+    void setUp() {
+        nodeA = node("alice", broadcasterA);
+        nodeB = node("bob", broadcasterB);
+        doAnswer(invocation -> {
+            Collection<PresenceEvent> events = invocation.getArgument(0);
+            events.forEach(event -> nodes.forEach(node -> node.onPresenceEvent(event)));
+            return null;
+        }).when(router).routeAll(anyCollection());
+        when(repository.findWatchers(Set.of("alice"))).thenReturn(Map.of("bob", Set.of("alice")));
+        when(repository.findContactsLastSeen("bob")).thenReturn(Map.of("alice", LocalDateTime.of(2025, 1, 1, 0, 0)));
+    }
+
+    @Test
+    void statusSetOnOneNodeReachesWatchersOnAnother() {
+        when(nodeSessionRegistry.connectedUsers(anyCollection())).thenReturn(Set.of("alice"));
+
+        nodeA.onStatusChange("alice", "away");
+        flushBoth();
+
+        verify(broadcasterB).sendPresenceDiff("bob", List.of(new UserPresenceDto("alice", true, "away", null)));
+        verify(broadcasterA, never()).sendPresenceDiff(anyString(), any());
+        assertEquals("away", nodeB.snapshot("bob").get(0).getStatus());
+    }
+
+    @Test
+    void goingOfflineEverywhereClearsTheStatusOnEveryNode() {
+        when(nodeSessionRegistry.connectedUsers(anyCollection())).thenReturn(Set.of("alice"));
+        nodeA.onStatusChange("alice", "away");
+        flushBoth();
+        clearInvocations(broadcasterB);
+
+        when(nodeSessionRegistry.connectedUsers(anyCollection())).thenReturn(Set.of());
+        nodeA.onPresenceChanged(new PresenceChangedEvent("alice", false));
+        flushBoth();
+
+        UserPresenceDto diff = sentTo(broadcasterB);
+        assertFalse(diff.getOnline());
+        assertNull(diff.getStatus());
+        assertNotNull(diff.getLastSeen());
+        assertNull(nodeA.snapshot("bob").get(0).getStatus());
+        assertNull(nodeB.snapshot("bob").get(0).getStatus());
+    }
+
+    @Test
+    void leavingOneNodeWhileConnectedToAnotherStaysOnline() {
+        when(nodeSessionRegistry.connectedUsers(anyCollection())).thenReturn(Set.of("alice"));
+        nodeA.onStatusChange("alice", "away");
+        flushBoth();
+        clearInvocations(broadcasterB);
+
+        // Alice closed her last session on node A; the registry still has her on a third node
+        nodeA.onPresenceChanged(new PresenceChangedEvent("alice", false));
+        flushBoth();
+
+        assertEquals(new UserPresenceDto("alice", true, "away", null), sentTo(broadcasterB));
+    }
+
+    private void flushBoth() {
+        nodeA.flushDiffs();
+        nodeB.flushDiffs();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static UserPresenceDto sentTo(WebSocketMessageBroadcaster broadcaster) {
+        ArgumentCaptor<List<UserPresenceDto>> diff = ArgumentCaptor.forClass(List.class);
+        verify(broadcaster).sendPresenceDiff(eq("bob"), diff.capture());
+        assertEquals(1, diff.getValue().size());
+        return diff.getValue().get(0);
+    }
+
+    private ContactPresenceService node(String connectedUser, WebSocketMessageBroadcaster broadcaster) {
+        PresenceService presenceService = mock(PresenceService.class);
+        when(presenceService.isOnline(connectedUser)).thenReturn(true);
+        ContactPresenceService node = new ContactPresenceService(presenceService, nodeSessionRegistry, router,
+                repository, broadcaster);
+        nodes.add(node);
+        return node;
+    }
+}
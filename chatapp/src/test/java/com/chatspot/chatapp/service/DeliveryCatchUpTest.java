@@ -0,0 +1,90 @@
+package com.chatspot.chatapp.service;
+
+import com.chatspot.chatapp.entity.message.DeliveryStatus;
+import com.chatspot.chatapp.kafka.KafkaProducerService;
+import com.chatspot.chatapp.kafka.event.DeliveryStatusEvent;
+import com.chatspot.chatapp.support.TestChats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * A recipient who was offline when their messages were consumed. No event reaches a consumer here, so the
+ * messages stay SENT until the recipient's first session opens.
+ */
+@SpringBootTest(properties = "application.event-bus.mode=in-memory")
+class DeliveryCatchUpTest {
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private DeliveryStatusService deliveryStatusService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private KafkaProducerService kafkaProducerService;
+
+    @MockitoBean
+    private PresenceService presenceService;
+
+    private TestChats testChats;
+
+    @BeforeEach
+    void setUp() {
+        testChats = new TestChats(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        testChats.deleteAll();
+    }
+
+    @Test
+    void messagesSentWhileOfflineAreDeliveredOnConnect() throws Exception {
+        List<String> members = testChats.createUsers(2);
+        String recipient = members.get(1);
+        Long chatId = testChats.createGroupChat(members);
+        Long first = messageService.sendMessage(chatId, members.get(0), "first", null).getId();
+        Long second = messageService.sendMessage(chatId, members.get(0), "second", null).getId();
+        when(presenceService.isOnline(recipient)).thenReturn(true);
+
+        deliveryStatusService.onPresenceChanged(new PresenceChangedEvent(recipient, true));
+
+        ArgumentCaptor<DeliveryStatusEvent> receipts = ArgumentCaptor.forClass(DeliveryStatusEvent.class);
+        verify(kafkaProducerService, times(2)).publishDeliveryStatusEvent(receipts.capture());
+        assertEquals(Set.of(first, second), receipts.getAllValues().stream()
+                .map(DeliveryStatusEvent::getMessageId).collect(Collectors.toSet()));
+        for (DeliveryStatusEvent receipt : receipts.getAllValues()) {
+            assertEquals(chatId, receipt.getChatId());
+            assertEquals(List.of(recipient), receipt.getUserIds());
+            assertEquals(DeliveryStatus.DELIVERED, receipt.getStatus());
+        }
+        assertEquals(List.of("DELIVERED", "DELIVERED"), jdbcTemplate.queryForList(
+                "SELECT status FROM message_delivery_status WHERE user_id = ?", String.class, recipient));
+
+        // Nothing left to deliver on the next connect
+        clearInvocations(kafkaProducerService);
+        deliveryStatusService.onPresenceChanged(new PresenceChangedEvent(recipient, true));
+        verify(kafkaProducerService, never()).publishDeliveryStatusEvent(any());
+    }
+}
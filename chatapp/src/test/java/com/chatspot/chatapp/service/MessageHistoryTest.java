@@ -0,0 +1,89 @@
+package com.chatspot.chatapp.service;
+
+import com.chatspot.chatapp.entity.message.Message;
+import com.chatspot.chatapp.support.TestChats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * History pages are seq ranges read from the months chat_message_months names, including when the
+ * chat's messages span two month partitions.
+ */
+@SpringBootTest(properties = "application.event-bus.mode=in-memory")
+class MessageHistoryTest {
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TestChats testChats;
+    private String sender;
+    private Long chatId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        testChats = new TestChats(jdbcTemplate);
+        List<String> members = testChats.createUsers(2);
+        sender = members.get(0);
+        chatId = testChats.createGroupChat(members);
+        for (int i = 0; i < 5; i++) {
+            messageService.sendMessage(chatId, sender, "message " + (i + 1), null);
+        }
+        // The first two messages move to the previous month, as if the chat had been quiet since
+        jdbcTemplate.queryForObject("SELECT create_message_partitions(CAST(now() - INTERVAL '1 month' AS DATE), CAST(now() AS DATE))",
+                Integer.class);
+        jdbcTemplate.update("UPDATE chats SET created_at = created_at - INTERVAL '1 month' WHERE id = ?", chatId);
+        jdbcTemplate.update("UPDATE messages SET created_at = created_at - INTERVAL '1 month' WHERE chat_id = ? AND seq <= 2", chatId);
+        jdbcTemplate.update("UPDATE chat_message_months SET first_seq = 3 WHERE chat_id = ?", chatId);
+        jdbcTemplate.update("INSERT INTO chat_message_months (chat_id, month, first_seq, last_seq) " +
+                            "SELECT chat_id, month - INTERVAL '1 month', 1, 2 FROM chat_message_months WHERE chat_id = ?", chatId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        testChats.deleteAll();
+    }
+
+    @Test
+    void cursorsReadTheSeqRangeOfThePage() {
+        assertPage(List.of(5L, 4L), true, messageService.getChatHistory(chatId, sender, null, null, null, null, 2));
+        assertPage(List.of(3L, 2L), true, messageService.getChatHistory(chatId, sender, 4L, null, null, null, 2));
+        assertPage(List.of(1L), false, messageService.getChatHistory(chatId, sender, 2L, null, null, null, 2));
+        assertPage(List.of(4L, 3L), true, messageService.getChatHistory(chatId, sender, null, 2L, null, null, 2));
+        assertPage(List.of(5L), false, messageService.getChatHistory(chatId, sender, null, 4L, null, null, 2));
+        assertPage(List.of(4L, 3L, 2L), true, messageService.getChatHistory(chatId, sender, null, null, 3L, null, 3));
+        assertPage(List.of(5L, 4L, 3L, 2L, 1L), false, messageService.getChatHistory(chatId, sender, 99L, null, null, null, 10));
+    }
+
+    @Test
+    void offsetPagesCountDownFromTheLatestSeq() {
+        Page<Message> page = messageService.getChatMessages(chatId, sender, PageRequest.of(1, 2));
+
+        assertEquals(List.of(3L, 2L), seqs(page.getContent()));
+        assertEquals(5, page.getTotalElements());
+        assertEquals(List.of(1L), seqs(messageService.getChatMessages(chatId, sender, PageRequest.of(2, 2)).getContent()));
+    }
+
+    private static void assertPage(List<Long> expectedSeqs, boolean hasNext, Slice<Message> page) {
+        assertEquals(expectedSeqs, seqs(page.getContent()));
+        assertEquals(hasNext, page.hasNext());
+    }
+
+    private static List<Long> seqs(List<Message> messages) {
+        return messages.stream().map(Message::getSeq).collect(Collectors.toList());
+    }
+}
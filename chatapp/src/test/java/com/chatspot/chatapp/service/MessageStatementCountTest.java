@@ -0,0 +1,122 @@
+package com.chatspot.chatapp.service;
+
+import com.chatspot.chatapp.entity.message.Message;
+import com.chatspot.chatapp.entity.message.ReactionType;
+import com.chatspot.chatapp.repository.MessageStatusJdbcRepository;
+import com.chatspot.chatapp.support.StatementCounter;
+import com.chatspot.chatapp.support.TestChats;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statements per reaction and delivery write. Each is one row-level statement whatever the size of the group
+ * or the number of rows already stored, and Hibernate never rewrites the message's collections.
+ */
+@SpringBootTest(properties = {
+        "application.event-bus.mode=in-memory",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+@Import(StatementCounter.class)
+class MessageStatementCountTest {
+
+    // The message fetched with its chat's participants, the membership check, then the single-row write
+    private static final int REACTION_STATEMENTS = 3;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private MessageStatusJdbcRepository messageStatusJdbcRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private TestChats testChats;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        testChats = new TestChats(jdbcTemplate);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        testChats.deleteAll();
+    }
+
+    @Test
+    void addAndRemoveReactionTouchOneRowWhateverTheReactionCount() throws Exception {
+        List<String> members = testChats.createUsers(50);
+        Long chatId = testChats.createGroupChat(members);
+        Message message = messageService.sendMessage(chatId, members.get(0), "hello", null);
+        Long messageId = message.getId();
+        LocalDateTime createdAt = message.getCreatedDate();
+
+        int firstReaction = StatementCounter.count(() -> messageService.addReaction(messageId, createdAt, members.get(1), ReactionType.THUMBUP));
+        for (int i = 2; i < members.size() - 1; i++) {
+            messageService.addReaction(messageId, createdAt, members.get(i), ReactionType.LOVE);
+        }
+
+        statistics.clear();
+        int lastReaction = StatementCounter.count(() -> messageService.addReaction(messageId, createdAt, members.get(49), ReactionType.THUMBUP));
+        int changedReaction = StatementCounter.count(() -> messageService.addReaction(messageId, createdAt, members.get(49), ReactionType.CRYING));
+        int removedReaction = StatementCounter.count(() -> messageService.removeReaction(messageId, createdAt, members.get(49)));
+
+        assertEquals(REACTION_STATEMENTS, firstReaction);
+        assertEquals(REACTION_STATEMENTS, lastReaction);
+        assertEquals(REACTION_STATEMENTS, changedReaction);
+        assertEquals(REACTION_STATEMENTS, removedReaction);
+        assertNoEntityOrCollectionWrites();
+    }
+
+    @Test
+    void markDeliveredIsOneStatementForAnyNumberOfRecipients() throws Exception {
+        List<String> members = testChats.createUsers(500);
+        Long chatId = testChats.createGroupChat(members);
+        Message message = messageService.sendMessage(chatId, members.get(0), "hello", null);
+        List<String> recipients = new ArrayList<>(members.subList(1, members.size()));
+
+        statistics.clear();
+        List<List<String>> delivered = new ArrayList<>();
+        int firstCall = StatementCounter.count(() ->
+                delivered.add(messageStatusJdbcRepository.markDelivered(message.getId(), message.getCreatedDate(), recipients)));
+        int repeatedCall = StatementCounter.count(() ->
+                delivered.add(messageStatusJdbcRepository.markDelivered(message.getId(), message.getCreatedDate(), recipients)));
+
+        assertEquals(1, firstCall);
+        assertEquals(1, repeatedCall);
+        assertEquals(new HashSet<>(recipients), new HashSet<>(delivered.get(0)));
+        // States only move forward
+        assertTrue(delivered.get(1).isEmpty());
+        assertNoEntityOrCollectionWrites();
+    }
+
+    private void assertNoEntityOrCollectionWrites() {
+        assertEquals(0, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityUpdateCount());
+        assertEquals(0, statistics.getEntityDeleteCount());
+        assertEquals(0, statistics.getCollectionRecreateCount());
+        assertEquals(0, statistics.getCollectionUpdateCount());
+        assertEquals(0, statistics.getCollectionRemoveCount());
+    }
+}
@@ -0,0 +1,138 @@
+package com.chatspot.chatapp.service;
+
+import com.chatspot.chatapp.repository.UserPresenceJdbcRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class PresenceServiceTest {
+
+    private final UserPresenceJdbcRepository repository = mock(UserPresenceJdbcRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final PresenceService presenceService = new PresenceService(repository, eventPublisher);
+
+    @Test
+    void userStaysOnlineUntilTheirLastSessionCloses() {
+        connect("alice", "phone");
+        connect("alice", "laptop");
+
+        assertTrue(presenceService.isOnline("alice"));
+        assertEquals(2, presenceService.sessionCount("alice"));
+        verify(eventPublisher, times(1)).publishEvent(new PresenceChangedEvent("alice", true));
+
+        disconnect("alice", "phone");
+        assertTrue(presenceService.isOnline("alice"));
+        assertEquals(1, presenceService.sessionCount("alice"));
+        verify(eventPublisher, never()).publishEvent(new PresenceChangedEvent("alice", false));
+
+        // A session closing twice, or one never seen, changes nothing
+        disconnect("alice", "phone");
+        disconnect("alice", "tablet");
+        assertTrue(presenceService.isOnline("alice"));
+
+        disconnect("alice", "laptop");
+        assertFalse(presenceService.isOnline("alice"));
+        assertEquals(0, presenceService.sessionCount("alice"));
+        assertEquals(Set.of(), presenceService.onlineUsers());
+        verify(eventPublisher, times(1)).publishEvent(new PresenceChangedEvent("alice", false));
+    }
+
+    @Test
+    void reconnectAfterGoingOfflineComesOnlineAgain() {
+        connect("alice", "phone");
+        disconnect("alice", "phone");
+        connect("alice", "laptop");
+
+        assertTrue(presenceService.isOnline("alice"));
+        verify(eventPublisher, times(2)).publishEvent(new PresenceChangedEvent("alice", true));
+    }
+
+    @Test
+    void flushWritesEachUsersLatestActivityOnce() {
+        List<Map<String, LocalDateTime>> flushed = recordFlushes(false);
+        connect("alice", "phone");
+        connect("bob", "laptop");
+        presenceService.onSessionActivity("phone");
+
+        presenceService.flushLastSeen();
+        presenceService.flushLastSeen();
+
+        assertEquals(1, flushed.size());
+        assertEquals(Set.of("alice", "bob"), flushed.get(0).keySet());
+    }
+
+    @Test
+    void failedFlushIsRetriedAndKeepsNewerActivity() {
+        List<Map<String, LocalDateTime>> flushed = recordFlushes(true);
+        connect("alice", "phone");
+        connect("bob", "laptop");
+
+        presenceService.flushLastSeen();
+        presenceService.flushLastSeen();
+
+        assertEquals(2, flushed.size());
+        Map<String, LocalDateTime> failed = flushed.get(0);
+        Map<String, LocalDateTime> retried = flushed.get(1);
+        assertEquals(failed.get("bob"), retried.get("bob"));
+        // Alice was active while the failing flush ran, and her newer timestamp is not overwritten by the failed one
+        assertTrue(retried.get("alice").isAfter(failed.get("alice")));
+
+        presenceService.flushLastSeen();
+        assertEquals(2, flushed.size());
+    }
+
+    // Copies of the maps passed to updateLastSeen; with failFirst, the first call sees alice active, then fails
+    private List<Map<String, LocalDateTime>> recordFlushes(boolean failFirst) {
+        List<Map<String, LocalDateTime>> flushed = new ArrayList<>();
+        doAnswer(invocation -> {
+            flushed.add(new HashMap<>(invocation.getArgument(0)));
+            if (failFirst && flushed.size() == 1) {
+                Thread.sleep(2);
+                presenceService.onSessionActivity("phone");
+                throw new DataAccessResourceFailureException("connection refused");
+            }
+            return flushed.get(flushed.size() - 1).size();
+        }).when(repository).updateLastSeen(any());
+        return flushed;
+    }
+
+    private void connect(String userId, String sessionId) {
+        Principal user = () -> userId;
+        presenceService.onSessionConnected(new SessionConnectedEvent(this, message(SimpMessageType.CONNECT_ACK, sessionId), user));
+    }
+
+    private void disconnect(String userId, String sessionId) {
+        Principal user = () -> userId;
+        presenceService.onSessionDisconnect(new SessionDisconnectEvent(this, message(SimpMessageType.DISCONNECT, sessionId),
+                sessionId, CloseStatus.NORMAL, user));
+    }
+
+    private static Message<byte[]> message(SimpMessageType type, String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
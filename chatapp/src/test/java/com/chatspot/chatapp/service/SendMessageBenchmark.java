@@ -0,0 +1,80 @@
+package com.chatspot.chatapp.service;
+
+import com.chatspot.chatapp.support.TestChats;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Send latency by group size, 2 to 5,000 members. Recipients come from the chat's participants and the
+ * delivery rows go out as one JDBC batch, so the statement count stays the same for every size and only the
+ * batch grows. Run with {@code mvn test -Pbenchmark} against the database of application.yml.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "application.event-bus.mode=in-memory",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+class SendMessageBenchmark {
+
+    private static final int[] GROUP_SIZES = {2, 50, 500, 5000};
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private TestChats testChats;
+
+    @AfterEach
+    void tearDown() {
+        testChats.deleteAll();
+    }
+
+    @Test
+    void sendLatencyByGroupSize() throws Exception {
+        testChats = new TestChats(jdbcTemplate);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        System.out.printf("%n%10s %14s %14s %16s%n", "members", "avg ms/send", "p99 ms/send", "statements/send");
+        for (int size : GROUP_SIZES) {
+            List<String> members = testChats.createUsers(size);
+            Long chatId = testChats.createGroupChat(members);
+            String senderId = members.get(0);
+            for (int i = 0; i < WARMUP; i++) {
+                messageService.sendMessage(chatId, senderId, "warmup " + i, null);
+            }
+            statistics.clear();
+            long[] nanos = new long[ITERATIONS];
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                messageService.sendMessage(chatId, senderId, "message " + i, null);
+                nanos[i] = System.nanoTime() - start;
+            }
+            long total = 0;
+            for (long n : nanos) {
+                total += n;
+            }
+            Arrays.sort(nanos);
+            System.out.printf("%10d %14.2f %14.2f %16.1f%n", size,
+                    total / (double) ITERATIONS / 1_000_000,
+                    nanos[(int) Math.ceil(ITERATIONS * 0.99) - 1] / 1_000_000.0,
+                    statistics.getPrepareStatementCount() / (double) ITERATIONS);
+        }
+    }
+}
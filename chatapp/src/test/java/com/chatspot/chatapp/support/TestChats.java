@@ -0,0 +1,64 @@
+package com.chatspot.chatapp.support;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Inserts users and chats straight through JDBC, so database tests and benchmarks can set up groups of
+ * thousands of members in a second. Ids carry a random prefix, so runs never collide with earlier data, and
+ * {@link #deleteAll()} removes everything created under it, including the messages sent in those chats.
+ */
+public class TestChats {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String prefix = "test-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+    private int userCount;
+
+    public TestChats(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<String> createUsers(int count) {
+        List<String> userIds = new ArrayList<>(count);
+        List<Object[]> rows = new ArrayList<>(count);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < count; i++) {
+            String userId = prefix + (userCount++);
+            userIds.add(userId);
+            rows.add(new Object[]{userId, now, userId + "@example.com", "User " + userId});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, created_at, email, first_name) VALUES (?, ?, ?, ?)", rows);
+        return userIds;
+    }
+
+    // The first member creates the chat
+    public Long createGroupChat(List<String> memberIds) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Long chatId = jdbcTemplate.queryForObject(
+                "INSERT INTO chats (created_at, name, type, created_by) VALUES (?, ?, 'GROUP', ?) RETURNING id",
+                Long.class, now, prefix + "chat", memberIds.get(0));
+        List<Object[]> rows = new ArrayList<>(memberIds.size());
+        for (String memberId : memberIds) {
+            rows.add(new Object[]{chatId, memberId, memberId.equals(memberIds.get(0)) ? "ADMIN" : "MEMBER", now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO chat_participants (chat_id, user_id, role, joined_at) VALUES (?, ?, ?, ?)", rows);
+        return chatId;
+    }
+
+    // Children first; every row below belongs to a user or a chat created here
+    public void deleteAll() {
+        String users = prefix + "%";
+        jdbcTemplate.update("DELETE FROM message_reactions WHERE user_id LIKE ?", users);
+        jdbcTemplate.update("DELETE FROM message_delivery_status WHERE user_id LIKE ?", users);
+        jdbcTemplate.update("DELETE FROM messages WHERE sender_id LIKE ?", users);
+        jdbcTemplate.update("DELETE FROM chat_message_months WHERE chat_id IN (SELECT id FROM chats WHERE created_by LIKE ?)", users);
+        jdbcTemplate.update("DELETE FROM chat_participants WHERE user_id LIKE ?", users);
+        jdbcTemplate.update("DELETE FROM chats WHERE created_by LIKE ?", users);
+        jdbcTemplate.update("DELETE FROM users WHERE id LIKE ?", users);
+    }
+}
@@ -0,0 +1,79 @@
+package com.chatspot.chatapp.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MultiValueMap;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedSubscriptionRegistryTest {
+
+    private final IndexedSubscriptionRegistry registry = new IndexedSubscriptionRegistry();
+
+    @Test
+    void findsExactAndPatternSubscriptions() {
+        registry.registerSubscription(subscribe("s1", "sub-1", "/topic/chat/1"));
+        registry.registerSubscription(subscribe("s1", "sub-2", "/topic/chat/1"));
+        registry.registerSubscription(subscribe("s2", "sub-1", "/topic/chat/2"));
+        registry.registerSubscription(subscribe("s3", "sub-1", "/topic/chat/*"));
+
+        MultiValueMap<String, String> found = registry.findSubscriptions(message("/topic/chat/1"));
+
+        assertEquals(List.of("sub-1", "sub-2"), found.get("s1").stream().sorted().toList());
+        assertEquals(List.of("sub-1"), found.get("s3"));
+        assertFalse(found.containsKey("s2"));
+    }
+
+    @Test
+    void unsubscribeAndDisconnectRemoveIndexEntries() {
+        registry.registerSubscription(subscribe("s1", "sub-1", "/topic/chat/1"));
+        registry.registerSubscription(subscribe("s1", "sub-2", "/topic/chat/2"));
+        registry.registerSubscription(subscribe("s2", "sub-1", "/topic/chat/1"));
+
+        registry.unregisterSubscription(unsubscribe("s1", "sub-1"));
+        assertEquals(List.of("s2"), List.copyOf(registry.findSubscriptions(message("/topic/chat/1")).keySet()));
+
+        registry.unregisterAllSubscriptions("s1");
+        registry.unregisterAllSubscriptions("s2");
+        assertTrue(registry.findSubscriptions(message("/topic/chat/2")).isEmpty());
+        assertEquals(0, registry.getDestinationCount());
+    }
+
+    @Test
+    void publishesSeeSubscriptionsMadeAfterEarlierPublishes() {
+        registry.registerSubscription(subscribe("s1", "sub-1", "/topic/chat/1"));
+        assertEquals(List.of("s1"), List.copyOf(registry.findSubscriptions(message("/topic/chat/1")).keySet()));
+
+        registry.registerSubscription(subscribe("s2", "sub-1", "/topic/chat/1"));
+        assertEquals(List.of("s1", "s2"), registry.findSubscriptions(message("/topic/chat/1")).keySet().stream().sorted().toList());
+
+        registry.unregisterAllSubscriptions("s1");
+        assertEquals(List.of("s2"), List.copyOf(registry.findSubscriptions(message("/topic/chat/1")).keySet()));
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> unsubscribe(String sessionId, String subscriptionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> message(String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,185 @@
+package com.chatspot.chatapp.websocket;
+
+import com.chatspot.chatapp.entity.message.ReactionType;
+import com.chatspot.chatapp.eventbus.EventBus;
+import com.chatspot.chatapp.kafka.event.ChatEvent;
+import com.chatspot.chatapp.kafka.event.ReactionEvent;
+import com.chatspot.chatapp.service.PresenceService;
+import com.chatspot.chatapp.support.TestChats;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Routing between nodes on an embedded broker. The application context is node A, which consumes the shared
+ * topics; nodes B and C are a second registry and router each, with their own node topic and consumer. Only B
+ * holds a session of a chat participant.
+ */
+@EmbeddedKafka(partitions = 1, topics = {"chat-messages", "delivery-status", "message-reactions"})
+@SpringBootTest(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.producer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.consumer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.admin.properties.bootstrap.servers=${spring.embedded.kafka.brokers}",
+        "application.node.id=node-a"
+})
+class NodeEventRoutingTest {
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private KafkaAdmin kafkaAdmin;
+
+    @Autowired
+    @Qualifier("kafkaListenerContainerFactory")
+    private ConcurrentKafkaListenerContainerFactory<Object, Object> containerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @MockitoBean
+    private WebSocketMessageBroadcaster broadcasterA;
+
+    private final List<Node> nodes = new ArrayList<>();
+    private TestChats testChats;
+
+    @BeforeEach
+    void setUp() {
+        testChats = new TestChats(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(Node::stop);
+        testChats.deleteAll();
+    }
+
+    @Test
+    void eventConsumedByOneNodeReachesTheNodeHoldingTheSession() {
+        List<String> members = testChats.createUsers(3);
+        Long chatId = testChats.createGroupChat(members);
+        String outsider = testChats.createUsers(1).get(0);
+        Node nodeB = start("node-b", members.get(2));
+        Node nodeC = start("node-c", outsider);
+
+        ReactionEvent event = new ReactionEvent();
+        event.setMessageId(1L);
+        event.setChatId(chatId);
+        event.setUserId(members.get(1));
+        event.setReactionType(ReactionType.THUMBUP);
+        kafkaTemplate.send("message-reactions", chatId.toString(), event);
+
+        ArgumentCaptor<ReactionEvent> received = ArgumentCaptor.forClass(ReactionEvent.class);
+        verify(nodeB.broadcaster, timeout(30_000)).broadcastReaction(received.capture());
+        assertEquals(event.getEventId(), received.getValue().getEventId());
+        assertEquals(chatId, received.getValue().getChatId());
+
+        // Neither the consuming node nor a node without participant sessions broadcasts it
+        verify(nodeC.broadcaster, after(2_000).never()).broadcastReaction(any());
+        verify(broadcasterA, never()).broadcastReaction(any());
+        assertEquals(Map.of(chatId, Set.of("node-b")), nodeB.registry.nodesByChat(List.of(chatId)));
+    }
+
+    @Test
+    void nodeSweptWhileAliveRecreatesItsTopicAndRows() throws Exception {
+        List<String> members = testChats.createUsers(2);
+        Long chatId = testChats.createGroupChat(members);
+        Node nodeD = start("node-d", members.get(1));
+
+        // What another node's sweep does to a node it took for dead
+        jdbcTemplate.update("DELETE FROM ws_nodes WHERE node_id = ?", "node-d");
+        try (AdminClient adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties())) {
+            adminClient.deleteTopics(List.of(nodeD.registry.getTopic())).all().get(10, TimeUnit.SECONDS);
+            assertTrue(nodeD.registry.nodesByChat(List.of(chatId)).isEmpty());
+
+            // The broker may still be deleting the topic, which fails the first attempts to create it
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (!topics(adminClient).contains(nodeD.registry.getTopic()) && System.nanoTime() < deadline) {
+                nodeD.registry.heartbeat();
+                Thread.sleep(200);
+            }
+            assertTrue(topics(adminClient).contains(nodeD.registry.getTopic()));
+        }
+        assertEquals(Map.of(chatId, Set.of("node-d")), nodeD.registry.nodesByChat(List.of(chatId)));
+    }
+
+    private static Set<String> topics(AdminClient adminClient) throws Exception {
+        return adminClient.listTopics().names().get(10, TimeUnit.SECONDS);
+    }
+
+    // A registry with one connected user, a router, and a consumer of the node topic like KafkaConsumerService's
+    private Node start(String nodeId, String connectedUser) {
+        PresenceService presenceService = mock(PresenceService.class);
+        when(presenceService.onlineUsers()).thenReturn(Set.of(connectedUser));
+        when(presenceService.isOnline(connectedUser)).thenReturn(true);
+
+        NodeSessionRegistry registry = new NodeSessionRegistry(jdbcTemplate, kafkaAdmin, presenceService, nodeId);
+        ReflectionTestUtils.setField(registry, "ttlMs", 20_000L);
+        ReflectionTestUtils.setField(registry, "topicRetentionMs", 3_600_000L);
+        ReflectionTestUtils.setField(registry, "eventBusMode", EventBus.MODE_KAFKA);
+        registry.register();
+        registry.reconcile();
+
+        WebSocketMessageBroadcaster broadcaster = mock(WebSocketMessageBroadcaster.class);
+        NodeEventRouter router = new NodeEventRouter(registry, broadcaster, kafkaTemplate,
+                mock(ApplicationEventPublisher.class), EventBus.MODE_KAFKA);
+
+        broker.addTopics(new NewTopic(registry.getTopic(), 1, (short) 1));
+        ConcurrentMessageListenerContainer<Object, Object> container = containerFactory.createContainer(registry.getTopic());
+        container.getContainerProperties().setGroupId(registry.getTopic());
+        container.getContainerProperties().setMessageListener(
+                (MessageListener<String, ChatEvent>) record -> router.broadcastLocally(record.value()));
+        container.start();
+        ContainerTestUtils.waitForAssignment(container, 1);
+
+        Node node = new Node(registry, broadcaster, container);
+        nodes.add(node);
+        return node;
+    }
+
+    private record Node(NodeSessionRegistry registry, WebSocketMessageBroadcaster broadcaster,
+                        ConcurrentMessageListenerContainer<Object, Object> container) {
+
+        void stop() {
+            container.stop();
+            registry.deregister();
+        }
+    }
+}
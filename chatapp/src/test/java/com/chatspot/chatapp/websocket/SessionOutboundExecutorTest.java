@@ -0,0 +1,174 @@
+package com.chatspot.chatapp.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Shedding policies of a session queue. Each test first sends a frame that blocks its send until released,
+ * so the frames after it queue up behind a client that is not keeping up.
+ */
+class SessionOutboundExecutorTest {
+
+    private static final String SESSION_ID = "session-1";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WebSocketSession session = mock(WebSocketSession.class);
+    private final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch sending = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private SessionOutboundExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void coalescedStateFrameDropsTheQueuedOneAndJoinsTheTail() throws Exception {
+        start(8, 60_000);
+
+        send("receipt-1", OutboundFrameClass.STATE, "message-7");
+        send("message-8", OutboundFrameClass.MESSAGE, null);
+        send("receipt-2", OutboundFrameClass.STATE, "message-7");
+
+        assertEquals(List.of("blocker", "message-8", "receipt-2"), drain(3));
+        assertEquals(1.0, dropped(OutboundFrameClass.STATE, "coalesced"));
+    }
+
+    @Test
+    void ephemeralFramesAreDroppedFromAHalfFullQueueAndEvictedForMessages() throws Exception {
+        start(4, 60_000);
+
+        send("typing-1", OutboundFrameClass.EPHEMERAL, null);
+        send("message-1", OutboundFrameClass.MESSAGE, null);
+        // Two of four slots are taken
+        send("typing-2", OutboundFrameClass.EPHEMERAL, null);
+        send("message-2", OutboundFrameClass.MESSAGE, null);
+        send("message-3", OutboundFrameClass.MESSAGE, null);
+        // The queue is full: the queued typing frame makes room
+        send("message-4", OutboundFrameClass.MESSAGE, null);
+
+        assertEquals(List.of("blocker", "message-1", "message-2", "message-3", "message-4"), drain(5));
+        assertEquals(1.0, dropped(OutboundFrameClass.EPHEMERAL, "overflow"));
+        assertEquals(1.0, dropped(OutboundFrameClass.EPHEMERAL, "evicted"));
+        verify(session, never()).close(SessionOutboundExecutor.SLOW_CONSUMER);
+    }
+
+    @Test
+    void messageThatDoesNotFitClosesTheSessionAndDiscardsTheQueue() throws Exception {
+        start(2, 60_000);
+
+        send("message-1", OutboundFrameClass.MESSAGE, null);
+        send("message-2", OutboundFrameClass.MESSAGE, null);
+        send("message-3", OutboundFrameClass.MESSAGE, null);
+
+        verify(session, timeout(5_000)).close(SessionOutboundExecutor.SLOW_CONSUMER);
+        assertEquals(2.0, dropped(OutboundFrameClass.MESSAGE, "disconnect"));
+        release.countDown();
+        send("message-4", OutboundFrameClass.MESSAGE, null);
+        Thread.sleep(100);
+        assertEquals(List.of("blocker"), sent);
+    }
+
+    @Test
+    void stalledSendClosesTheSessionOnTheNextMessage() throws Exception {
+        start(8, 50);
+
+        send("typing-1", OutboundFrameClass.EPHEMERAL, null);
+        Thread.sleep(100);
+        send("message-1", OutboundFrameClass.MESSAGE, null);
+
+        verify(session, timeout(5_000)).close(SessionOutboundExecutor.SLOW_CONSUMER);
+        assertEquals(1.0, dropped(OutboundFrameClass.EPHEMERAL, "disconnect"));
+    }
+
+    // Registers the session and blocks its first send
+    private void start(int queueCapacity, long sendTimeLimitMs) throws Exception {
+        executor = new SessionOutboundExecutor(meterRegistry, queueCapacity, 1_000_000, sendTimeLimitMs);
+        executor.initialize();
+        when(session.getId()).thenReturn(SESSION_ID);
+        executor.decorate(mock(WebSocketHandler.class)).afterConnectionEstablished(session);
+
+        executor.execute(frame("blocker", OutboundFrameClass.MESSAGE, null, () -> {
+            sending.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+    }
+
+    private void send(String name, OutboundFrameClass frameClass, String coalesceKey) {
+        executor.execute(frame(name, frameClass, coalesceKey, () -> {
+        }));
+    }
+
+    private List<String> drain(int expected) throws Exception {
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sent.size() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(50);
+        return List.copyOf(sent);
+    }
+
+    private double dropped(OutboundFrameClass frameClass, String reason) {
+        Counter counter = meterRegistry.find("chatapp.websocket.outbound.dropped")
+                .tags("class", frameClass.name(), "reason", reason)
+                .counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private MessageHandlingRunnable frame(String name, OutboundFrameClass frameClass, String coalesceKey, Runnable send) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setSessionId(SESSION_ID);
+        accessor.setHeader(OutboundFrameClass.HEADER, frameClass);
+        if (coalesceKey != null) {
+            accessor.setHeader(OutboundFrameClass.COALESCE_KEY_HEADER, coalesceKey);
+        }
+        Message<byte[]> message = MessageBuilder.createMessage(name.getBytes(), accessor.getMessageHeaders());
+        return new MessageHandlingRunnable() {
+            @Override
+            public Message<?> getMessage() {
+                return message;
+            }
+
+            @Override
+            public MessageHandler getMessageHandler() {
+                return mock(MessageHandler.class);
+            }
+
+            @Override
+            public void run() {
+                sent.add(name);
+                send.run();
+            }
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package com.chatspot.chatapp.websocket;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.DefaultSubscriptionRegistry;
+import org.springframework.messaging.simp.broker.SubscriptionRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Subscribe and publish throughput of IndexedSubscriptionRegistry against Spring's DefaultSubscriptionRegistry
+ * at 10k, 100k and 1M subscriptions: every session subscribes to one chat topic, ten sessions per chat, and
+ * publishes go to random chats. Subscribe rates include building the SUBSCRIBE message; publishes run for a
+ * fixed time, since a full scan of 1M subscriptions takes milliseconds. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class SubscriptionRegistryBenchmark {
+
+    private static final int[] SUBSCRIPTIONS = {10_000, 100_000, 1_000_000};
+    private static final int SESSIONS_PER_CHAT = 10;
+    private static final int DESTINATIONS = 4_096;
+    private static final long PUBLISH_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private long sink;
+
+    @Test
+    void subscribeAndPublishThroughput() {
+        // Warms up both registries before anything is measured
+        run(IndexedSubscriptionRegistry::new, 100_000);
+        run(DefaultSubscriptionRegistry::new, 100_000);
+
+        System.out.printf("%n%13s %10s %14s %16s%n", "subscriptions", "registry", "subscribes/s", "publishes/s");
+        for (int subscriptions : SUBSCRIPTIONS) {
+            print(subscriptions, "indexed", run(IndexedSubscriptionRegistry::new, subscriptions));
+            print(subscriptions, "default", run(DefaultSubscriptionRegistry::new, subscriptions));
+        }
+        System.out.printf("(checksum %d)%n", sink);
+    }
+
+    private double[] run(Supplier<SubscriptionRegistry> factory, int subscriptions) {
+        SubscriptionRegistry registry = factory.get();
+        int chats = subscriptions / SESSIONS_PER_CHAT;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < subscriptions; i++) {
+            registry.registerSubscription(subscribe("session-" + i, "sub-0", "/topic/chat/" + (i % chats)));
+        }
+        double subscribeRate = subscriptions / ((System.nanoTime() - start) / 1_000_000_000.0);
+
+        Random random = new Random(42);
+        Message<?>[] publishes = new Message<?>[DESTINATIONS];
+        for (int i = 0; i < publishes.length; i++) {
+            publishes[i] = message("/topic/chat/" + random.nextInt(chats));
+        }
+        long published = 0;
+        start = System.nanoTime();
+        long elapsed;
+        do {
+            sink += registry.findSubscriptions(publishes[(int) (published++ % publishes.length)]).size();
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < PUBLISH_NANOS);
+        double publishRate = published / (elapsed / 1_000_000_000.0);
+
+        return new double[]{subscribeRate, publishRate};
+    }
+
+    private static void print(int subscriptions, String registry, double[] rates) {
+        System.out.printf("%13d %10s %14.0f %16.0f%n", subscriptions, registry, rates[0], rates[1]);
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> message(String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,105 @@
+package com.chatspot.chatapp.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+// Never started, so the test drives the wheel one tick at a time: 100 ms ticks, 5 ticks of TTL, flush every 2 ticks
+class TypingAggregatorTest {
+
+    private static final Long CHAT = 1L;
+
+    private final WebSocketMessageBroadcaster broadcaster = mock(WebSocketMessageBroadcaster.class);
+    private final TypingAggregator aggregator = new TypingAggregator(broadcaster, 100, 500, 200);
+
+    @Test
+    void startAndExpiryAreEachBroadcastOnceAtTheNextFlush() {
+        aggregator.onTyping(CHAT, "alice", true);
+        aggregator.tick();
+        verify(broadcaster, never()).broadcastTypingUsers(anyLong(), any());
+
+        aggregator.tick();
+        verify(broadcaster).broadcastTypingUsers(CHAT, List.of("alice"));
+        clearInvocations(broadcaster);
+
+        // Keystrokes while typing change nothing that clients see
+        aggregator.onTyping(CHAT, "alice", true);
+        ticks(2);
+        verify(broadcaster, never()).broadcastTypingUsers(anyLong(), any());
+
+        ticks(4);
+        verify(broadcaster).broadcastTypingUsers(CHAT, List.of());
+    }
+
+    @Test
+    void typingAgainPostponesTheExpiry() {
+        aggregator.onTyping(CHAT, "alice", true);
+        ticks(4);
+        aggregator.onTyping(CHAT, "alice", true);
+        clearInvocations(broadcaster);
+
+        // The first expiry at tick 5 moves the entry on to tick 9
+        ticks(4);
+        verify(broadcaster, never()).broadcastTypingUsers(anyLong(), any());
+        assertEquals(1, wheelEntries());
+
+        ticks(2);
+        verify(broadcaster).broadcastTypingUsers(CHAT, List.of());
+        assertEquals(0, wheelEntries());
+    }
+
+    @Test
+    void stopThenStartKeepsASingleWheelEntry() {
+        aggregator.onTyping(CHAT, "alice", true);
+        aggregator.tick();
+        aggregator.onTyping(CHAT, "alice", false);
+        aggregator.onTyping(CHAT, "alice", true);
+        aggregator.onTyping(CHAT, "alice", false);
+        aggregator.onTyping(CHAT, "alice", true);
+
+        assertEquals(1, wheelEntries());
+
+        // The remaining entry carries the user to the expiry of the last start, tick 6
+        ticks(4);
+        assertEquals(1, wheelEntries());
+        clearInvocations(broadcaster);
+        ticks(2);
+        verify(broadcaster).broadcastTypingUsers(CHAT, List.of());
+        assertEquals(0, wheelEntries());
+    }
+
+    @Test
+    void stopFrameIsBroadcastWithoutWaitingForTheExpiry() {
+        aggregator.onTyping(CHAT, "alice", true);
+        aggregator.onTyping(CHAT, "bob", true);
+        ticks(2);
+        clearInvocations(broadcaster);
+
+        aggregator.onTyping(CHAT, "alice", false);
+        ticks(2);
+
+        verify(broadcaster).broadcastTypingUsers(CHAT, List.of("bob"));
+    }
+
+    private void ticks(int count) {
+        for (int i = 0; i < count; i++) {
+            aggregator.tick();
+        }
+    }
+
+    private int wheelEntries() {
+        Collection<?>[] wheel = (Collection<?>[]) ReflectionTestUtils.getField(aggregator, "wheel");
+        return Stream.of(wheel).mapToInt(Collection::size).sum();
+    }
+}
@@ -0,0 +1,305 @@
+package com.chatspot.chatapp.websocket;
+
+import com.chatspot.chatapp.config.JwtPrincipalHandshakeHandler;
+import com.chatspot.chatapp.entity.message.MessageType;
+import com.chatspot.chatapp.kafka.event.MessageEvent;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.SimpleMessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.WebSocketClient;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Type;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bytes on the wire and server CPU per 10k chat messages for each way a client can connect: SockJS on /ws, and
+ * STOMP over the raw WebSocket of /ws-native with JSON or binary bodies, with and without permessage-deflate.
+ * One client at a time subscribes to a chat topic through a TCP proxy that counts the bytes the server sends it,
+ * and the messages are broadcast from the test thread with at most {@value #IN_FLIGHT} unreceived at a time, so
+ * the session queue never sheds. CPU is the sum over the test thread and the server's channel and connector
+ * threads, the best of {@value #ROUNDS} rounds; the client's and the proxy's threads are left out. Message texts
+ * cycle through a few sentences, which deflate's sliding window shares across messages, so the compressed sizes
+ * are a best case. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "application.event-bus.mode=in-memory",
+        "logging.level.com.chatspot.chatapp.websocket.WebSocketMessageBroadcaster=warn"
+})
+class WebSocketEndpointBenchmark {
+
+    private static final int MESSAGES = 10_000;
+    private static final int WARMUP = 3_000;
+    private static final int ROUNDS = 3;
+    private static final int IN_FLIGHT = 100;
+    private static final long CHAT_ID = 1L;
+    // The server's side of a broadcast besides the test thread: STOMP encoding, compression and socket writes
+    private static final List<String> SERVER_THREADS = List.of("clientOutboundChannel-", "clientInboundChannel-",
+            "brokerChannel-", "http-nio-");
+    private static final String[] CONTENT = {
+            "Are we still on for the design review at three?",
+            "Yes, I moved it to the small meeting room on the second floor",
+            "Could you share the slides before we start? I want to read the numbers first",
+            "Sure, uploading them now. The latency section is still a draft",
+            "ok 👍"
+    };
+
+    @Autowired
+    private WebSocketMessageBroadcaster broadcaster;
+
+    @LocalServerPort
+    private int port;
+
+    private long nextSeq;
+
+    @Test
+    void bytesAndCpuPerEndpoint() throws Exception {
+        List<Variant> variants = List.of(
+                new Variant("/ws (SockJS)", "/ws", true, false, false),
+                new Variant("/ws-native", "/ws-native", false, false, false),
+                new Variant("/ws-native", "/ws-native", false, false, true),
+                new Variant("/ws-native", "/ws-native", false, true, false),
+                new Variant("/ws-native", "/ws-native", false, true, true));
+        List<String> senders = List.of(UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+                UUID.randomUUID().toString());
+
+        try (ByteCountingProxy proxy = new ByteCountingProxy(port)) {
+            // Warms up every path before anything is measured
+            for (Variant variant : variants) {
+                run(variant, proxy, senders);
+            }
+            System.out.printf("%n%14s %6s %8s %11s %10s %12s %13s%n", "endpoint", "body", "deflate",
+                    "body B/msg", "wire B/msg", "wire KB/10k", "CPU ms/10k");
+            for (Variant variant : variants) {
+                print(variant, run(variant, proxy, senders));
+            }
+        }
+    }
+
+    private Result run(Variant variant, ByteCountingProxy proxy, List<String> senders) throws Exception {
+        AtomicInteger received = new AtomicInteger();
+        AtomicLong bodyBytes = new AtomicLong();
+        Semaphore inFlight = new Semaphore(IN_FLIGHT);
+        StompSession session = connect(variant, proxy.port());
+        session.subscribe("/topic/chat/" + CHAT_ID, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                bodyBytes.addAndGet(((byte[]) payload).length);
+                received.incrementAndGet();
+                inFlight.release();
+            }
+        });
+
+        // The subscription is registered once a broadcast arrives; the ones before it went nowhere
+        while (received.get() == 0) {
+            broadcaster.broadcastNewMessage(message(senders));
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        inFlight.drainPermits();
+        inFlight.release(IN_FLIGHT);
+        broadcast(WARMUP, inFlight, senders);
+
+        long cpuNanos = Long.MAX_VALUE;
+        long wireBytes = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            bodyBytes.set(0);
+            proxy.bytesToClient.set(0);
+            Map<Long, Long> cpuBefore = serverThreadCpu();
+            broadcast(MESSAGES, inFlight, senders);
+            cpuNanos = Math.min(cpuNanos, cpuSince(cpuBefore));
+            wireBytes = proxy.bytesToClient.get();
+        }
+
+        session.disconnect();
+        return new Result(bodyBytes.get(), wireBytes, cpuNanos);
+    }
+
+    private static void print(Variant variant, Result result) {
+        System.out.printf("%14s %6s %8s %11d %10d %12d %13.1f%n", variant.name, variant.binary ? "binary" : "json",
+                variant.deflate ? "yes" : "no", result.bodyBytes / MESSAGES, result.wireBytes / MESSAGES,
+                result.wireBytes / 1024, result.cpuNanos / 1_000_000.0);
+    }
+
+    // Broadcasts count messages, never more than IN_FLIGHT ahead of the client, and waits for all of them
+    private void broadcast(int count, Semaphore inFlight, List<String> senders) throws InterruptedException {
+        for (int i = 0; i < count; i++) {
+            acquire(inFlight, 1);
+            broadcaster.broadcastNewMessage(message(senders));
+        }
+        acquire(inFlight, IN_FLIGHT);
+        inFlight.release(IN_FLIGHT);
+    }
+
+    private static void acquire(Semaphore inFlight, int permits) throws InterruptedException {
+        if (!inFlight.tryAcquire(permits, 30, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("The client stopped receiving messages");
+        }
+    }
+
+    private static StompSession connect(Variant variant, int port) throws Exception {
+        WebSocketClient webSocketClient = new StandardWebSocketClient();
+        String url;
+        if (variant.sockJs) {
+            webSocketClient = new SockJsClient(List.of(new WebSocketTransport(webSocketClient)));
+            url = "http://localhost:" + port + variant.endpoint;
+        } else {
+            url = "ws://localhost:" + port + variant.endpoint;
+        }
+        WebSocketStompClient stompClient = new WebSocketStompClient(webSocketClient);
+        // Hands the body over as it arrived, JSON or binary
+        stompClient.setMessageConverter(new SimpleMessageConverter());
+        stompClient.setDefaultHeartbeat(new long[]{0, 0});
+        stompClient.setInboundMessageSizeLimit(1024 * 1024);
+
+        WebSocketHttpHeaders handshakeHeaders = new WebSocketHttpHeaders();
+        if (variant.deflate) {
+            handshakeHeaders.setSecWebSocketExtensions(
+                    List.of(new WebSocketExtension(JwtPrincipalHandshakeHandler.PERMESSAGE_DEFLATE)));
+        }
+        StompHeaders connectHeaders = new StompHeaders();
+        if (variant.binary) {
+            connectHeaders.add(BinaryBodyInterceptor.BODY_FORMAT_HEADER, "binary");
+        }
+        return stompClient.connectAsync(url, handshakeHeaders, connectHeaders, new StompSessionHandlerAdapter() {
+        }).get(10, TimeUnit.SECONDS);
+    }
+
+    private MessageEvent message(List<String> senders) {
+        long i = nextSeq++;
+        MessageEvent event = new MessageEvent();
+        event.setMessageId(1_000_000L + i);
+        event.setChatId(CHAT_ID);
+        event.setSeq(i + 1);
+        event.setCreatedAt(LocalDateTime.now());
+        event.setSenderId(senders.get((int) (i % senders.size())));
+        event.setContent(CONTENT[(int) (i % CONTENT.length)]);
+        event.setMessageType(MessageType.TEXT);
+        event.setRecipients(senders);
+        return event;
+    }
+
+    private static Map<Long, Long> serverThreadCpu() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Map<Long, Long> cpu = new HashMap<>();
+        long self = Thread.currentThread().threadId();
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info != null && (info.getThreadId() == self
+                    || SERVER_THREADS.stream().anyMatch(info.getThreadName()::startsWith))) {
+                cpu.put(info.getThreadId(), threads.getThreadCpuTime(info.getThreadId()));
+            }
+        }
+        return cpu;
+    }
+
+    // Threads started since the snapshot count from zero
+    private static long cpuSince(Map<Long, Long> before) {
+        long total = 0;
+        for (Map.Entry<Long, Long> entry : serverThreadCpu().entrySet()) {
+            if (entry.getValue() >= 0) {
+                total += entry.getValue() - Math.max(before.getOrDefault(entry.getKey(), 0L), 0L);
+            }
+        }
+        return total;
+    }
+
+    private record Variant(String name, String endpoint, boolean sockJs, boolean binary, boolean deflate) {
+    }
+
+    private record Result(long bodyBytes, long wireBytes, long cpuNanos) {
+    }
+
+    /**
+     * Forwards localhost connections to the server and counts the bytes sent back, HTTP upgrade and WebSocket
+     * framing included.
+     */
+    private static class ByteCountingProxy implements AutoCloseable {
+
+        final AtomicLong bytesToClient = new AtomicLong();
+        private final ServerSocket serverSocket;
+
+        ByteCountingProxy(int targetPort) throws IOException {
+            serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            Thread acceptor = new Thread(() -> {
+                try {
+                    while (true) {
+                        Socket client = serverSocket.accept();
+                        Socket server = new Socket(InetAddress.getLoopbackAddress(), targetPort);
+                        client.setTcpNoDelay(true);
+                        server.setTcpNoDelay(true);
+                        pump(client.getInputStream(), server.getOutputStream(), null);
+                        pump(server.getInputStream(), client.getOutputStream(), bytesToClient);
+                    }
+                } catch (IOException e) {
+                    // Closed
+                }
+            }, "proxy-accept");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        private static void pump(InputStream in, OutputStream out, AtomicLong counter) {
+            Thread thread = new Thread(() -> {
+                byte[] buffer = new byte[16 * 1024];
+                try (in; out) {
+                    int read;
+                    while ((read = in.read(buffer)) >= 0) {
+                        out.write(buffer, 0, read);
+                        out.flush();
+                        if (counter != null) {
+                            counter.addAndGet(read);
+                        }
+                    }
+                } catch (IOException e) {
+                    // Either side closed
+                }
+            }, "proxy-pump");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}